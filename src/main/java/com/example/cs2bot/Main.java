@@ -1,10 +1,17 @@
 package com.example.cs2bot;
 
+import com.example.cs2bot.cases.SkinPool;
+import com.example.cs2bot.db.IndexManager;
+import com.example.cs2bot.db.InventoryWriter;
 import com.example.cs2bot.db.MongoUtil;
 import com.example.cs2bot.listeners.ButtonListener;
 import com.example.cs2bot.listeners.SlashCommandListener;
-import com.example.cs2bot.utils.PriceUpdater;
+import com.example.cs2bot.trade.TradeSweeper;
+import com.example.cs2bot.utils.PriceHistory;
+import com.example.cs2bot.utils.PriceRefreshService;
+import com.example.cs2bot.valuation.Valuation;
 import io.github.cdimascio.dotenv.Dotenv;
+import net.dv8tion.jda.api.JDA;
 import net.dv8tion.jda.api.JDABuilder;
 import net.dv8tion.jda.api.OnlineStatus;
 import net.dv8tion.jda.api.requests.GatewayIntent;
@@ -26,9 +33,24 @@ public class Main {
         // 🧩 Connect to MongoDB
         MongoUtil.connect(mongoUri);
 
+        // 🗂️ Secondary indexes (no-op when already present); VERIFY_INDEXES=true also explains the hot queries
+        IndexManager.ensureIndexes();
+        if ("true".equalsIgnoreCase(dotenv.get("VERIFY_INDEXES"))) IndexManager.verifyQueryPlans();
+
+        // 🎲 Load the skin pool used for case opening
+        SkinPool.start();
+
+        // 💶 Inventory values for /leaderboard; REBUILD_VALUATION=true recomputes them from the inventories
+        Valuation.start("true".equalsIgnoreCase(dotenv.get("REBUILD_VALUATION")));
+
+        // 📝 Batched inventory writes, flushed on shutdown
+        InventoryWriter.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(InventoryWriter::shutdown, "inventory-writer-shutdown"));
+
         // 💬 Setup Discord bot
+        JDA jda;
         try {
-            JDABuilder.createDefault(token)
+            jda = JDABuilder.createDefault(token)
                     .enableIntents(GatewayIntent.GUILD_MESSAGES, GatewayIntent.MESSAGE_CONTENT)
                     .setStatus(OnlineStatus.ONLINE)
                     .addEventListeners(
@@ -37,6 +59,10 @@ public class Main {
                     )
                     .build();
 
+            // 📋 Slash commands; GUILD_ID registers on one guild so changes show up immediately
+            jda.awaitReady();
+            SlashCommandListener.register(jda, dotenv.get("GUILD_ID"));
+
             System.out.println("✅ Bot started successfully.");
 
         } catch (Exception e) {
@@ -45,12 +71,20 @@ public class Main {
             return;
         }
 
-        // 💸 Start the price updater in the background
+        // 🧹 Expire stale trades and DM the participants
+        TradeSweeper.start(jda);
+
+        // 📈 Raw → hourly → daily price history compaction
+        PriceHistory.start();
+
+        // 💸 Start the scheduled price refresh in the background
         try {
-            System.out.println("🌀 Starting single-threaded PriceUpdater (3500ms delay between calls)");
-            new Thread(new PriceUpdater(3500, 1, 0)).start();
+            PriceRefreshService.start();
         } catch (Exception e) {
-            System.err.println("❌ Failed to start PriceUpdater: " + e.getMessage());
+            System.err.println("❌ Failed to start price refresh: " + e.getMessage());
         }
+
+        // 📊 Queue depths, pool stats and counters, logged periodically
+        MetricsLog.start();
     }
 }
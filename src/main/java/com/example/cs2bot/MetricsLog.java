@@ -0,0 +1,58 @@
+package com.example.cs2bot;
+
+import com.example.cs2bot.db.InventoryWriter;
+import com.example.cs2bot.db.MongoUtil;
+import com.example.cs2bot.listeners.InteractionDispatcher;
+import com.example.cs2bot.trade.TradeEngine;
+import com.example.cs2bot.utils.Endpoint;
+import com.example.cs2bot.utils.PriceCache;
+import com.example.cs2bot.valuation.Valuation;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Logs every subsystem's counters on a fixed interval: interaction queue and per-command waits,
+ * pending inventory writes, the Mongo pool, valuation, trades, the price cache and the upstreams.
+ * The counters are cumulative since startup, so two consecutive blocks give the rate.
+ */
+public final class MetricsLog {
+
+    public static final long INTERVAL_MINUTES = 15;
+
+    private static final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "metrics-log");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private MetricsLog() {}
+
+    public static void start() {
+        scheduler.scheduleWithFixedDelay(MetricsLog::logSafely, INTERVAL_MINUTES, INTERVAL_MINUTES, TimeUnit.MINUTES);
+        System.out.println("📊 Metrics logged every " + INTERVAL_MINUTES + " min");
+    }
+
+    /** The block {@link #start()} logs. */
+    public static String snapshot() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("interactions ").append(InteractionDispatcher.metrics().strip().replace("\n", "\n  ")).append('\n');
+        sb.append("inventory writes pending=").append(InventoryWriter.queueDepth())
+                .append(" dead-lettered=").append(InventoryWriter.deadLettered()).append('\n');
+        if (MongoUtil.isConnected()) sb.append("mongo pool ").append(MongoUtil.poolStats()).append('\n');
+        sb.append("valuation ").append(Valuation.stats()).append('\n');
+        sb.append("trades ").append(TradeEngine.stats()).append('\n');
+        sb.append("prices ").append(PriceCache.stats()).append('\n');
+        sb.append(Endpoint.metrics().strip());
+        return sb.toString();
+    }
+
+    private static void logSafely() {
+        try {
+            System.out.println("[Metrics] 📊\n  " + snapshot().replace("\n", "\n  "));
+        } catch (Exception e) {
+            System.err.println("[Metrics] ⚠️ Could not collect metrics: " + e.getMessage());
+        }
+    }
+}
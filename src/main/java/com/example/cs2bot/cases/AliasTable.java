@@ -0,0 +1,63 @@
+package com.example.cs2bot.cases;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * Vose alias table: O(n) to build, O(1) per weighted pick.
+ * Immutable once built, so it can be shared between threads freely.
+ */
+public final class AliasTable {
+
+    private final double[] prob;
+    private final int[] alias;
+
+    public AliasTable(double[] weights) {
+        int n = weights.length;
+        if (n == 0) throw new IllegalArgumentException("AliasTable needs at least one weight");
+
+        double sum = 0;
+        for (double w : weights) {
+            if (w < 0 || Double.isNaN(w)) throw new IllegalArgumentException("Negative or NaN weight: " + w);
+            sum += w;
+        }
+        if (sum <= 0) throw new IllegalArgumentException("Weights must not all be zero");
+
+        prob = new double[n];
+        alias = new int[n];
+
+        double[] scaled = new double[n];
+        int[] small = new int[n];
+        int[] large = new int[n];
+        int smallSize = 0, largeSize = 0;
+
+        for (int i = 0; i < n; i++) {
+            scaled[i] = weights[i] * n / sum;
+            if (scaled[i] < 1.0) small[smallSize++] = i;
+            else large[largeSize++] = i;
+        }
+
+        while (smallSize > 0 && largeSize > 0) {
+            int s = small[--smallSize];
+            int l = large[--largeSize];
+            prob[s] = scaled[s];
+            alias[s] = l;
+            scaled[l] = (scaled[l] + scaled[s]) - 1.0;
+            if (scaled[l] < 1.0) small[smallSize++] = l;
+            else large[largeSize++] = l;
+        }
+
+        // Leftovers are 1.0 up to rounding error
+        while (largeSize > 0) prob[large[--largeSize]] = 1.0;
+        while (smallSize > 0) prob[small[--smallSize]] = 1.0;
+    }
+
+    /** Returns an index in [0, size()) with probability proportional to its weight. */
+    public int sample(RandomGenerator rnd) {
+        int column = rnd.nextInt(prob.length);
+        return rnd.nextDouble() < prob[column] ? column : alias[column];
+    }
+
+    public int size() {
+        return prob.length;
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.cs2bot.cases;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * A case compiled into an immutable loot table. Built by {@link CaseRegistry}
+ * on load; opening is a pure in-memory operation and needs no locking.
+ */
+public final class CaseDefinition {
+
+    /** Float bounds for each exterior, as used by the market. */
+    private static final String[] WEARS = {
+            "Factory New", "Minimal Wear", "Field-Tested", "Well-Worn", "Battle-Scarred"
+    };
+    private static final double[] WEAR_MIN = {0.00, 0.07, 0.15, 0.38, 0.45};
+    private static final double[] WEAR_MAX = {0.07, 0.15, 0.38, 0.45, 1.00};
+
+    public final String id;
+    public final String name;
+    public final double statTrakChance;
+
+    private final SkinPool.Entry[] contents;
+    private final AliasTable table;
+
+    CaseDefinition(String id, String name, double statTrakChance, SkinPool.Entry[] contents, AliasTable table) {
+        this.id = id;
+        this.name = name;
+        this.statTrakChance = statTrakChance;
+        this.contents = contents;
+        this.table = table;
+    }
+
+    public int size() {
+        return contents.length;
+    }
+
+    public Drop open(RandomGenerator rnd) {
+        SkinPool.Entry skin = contents[table.sample(rnd)];
+        return roll(skin, statTrakChance, rnd);
+    }
+
+    /** Rolls StatTrak and a float inside both the skin's range and its exterior's range. */
+    static Drop roll(SkinPool.Entry skin, double statTrakChance, RandomGenerator rnd) {
+        boolean statTrak = statTrakChance > 0 && rnd.nextDouble() < statTrakChance;
+
+        double lo = skin.minFloat, hi = skin.maxFloat;
+        for (int i = 0; i < WEARS.length; i++) {
+            if (WEARS[i].equalsIgnoreCase(skin.wear)) {
+                double wLo = Math.max(lo, WEAR_MIN[i]);
+                double wHi = Math.min(hi, WEAR_MAX[i]);
+                if (wLo < wHi) {
+                    lo = wLo;
+                    hi = wHi;
+                }
+                break;
+            }
+        }
+
+        double fl = lo < hi ? lo + rnd.nextDouble() * (hi - lo) : lo;
+        return new Drop(skin, statTrak, fl);
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.cs2bot.cases;
+
+import com.example.cs2bot.db.MongoUtil;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Sorts;
+import org.bson.Document;
+
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Case definitions loaded from the {@code cases} collection:
+ * <pre>
+ * { _id: "prisma2", name: "🎨 Prisma 2 Case", order: 1,
+ *   skins: ["skin ids", ...],
+ *   odds: { "Mil-Spec": 0.7992, ... },   // optional, defaults to SkinPool.RARITY_ODDS
+ *   statTrakChance: 0.1 }                 // optional
+ * </pre>
+ * Each case is compiled against the current {@link SkinPool} into its own alias table.
+ * The full map is swapped in one volatile write, so opens never lock or query.
+ */
+public final class CaseRegistry {
+
+    public static final double DEFAULT_STATTRAK_CHANCE = 0.10;
+
+    /** Cases shown before any definitions have been seeded; they draw from the whole pool. */
+    private static final Map<String, String> FALLBACK_CASES;
+    static {
+        Map<String, String> m = new LinkedHashMap<>();
+        m.put("prisma2", "🎨 Prisma 2 Case");
+        m.put("revolution", "⚡ Revolution Case");
+        m.put("dreams", "💤 Dreams & Nightmares Case");
+        FALLBACK_CASES = Collections.unmodifiableMap(m);
+    }
+
+    private static volatile Map<String, CaseDefinition> cases = Map.of();
+
+    private CaseRegistry() {}
+
+    /** Recompiles every case from the cases collection and the current skin pool. */
+    public static synchronized void reload() {
+        try {
+            MongoCollection<Document> coll = MongoUtil.cases();
+            Map<String, CaseDefinition> compiled = new LinkedHashMap<>();
+
+            for (Document d : coll.find().sort(Sorts.ascending("order"))) {
+                CaseDefinition def = compile(d);
+                if (def != null) compiled.put(def.id, def);
+            }
+
+            cases = Collections.unmodifiableMap(compiled);
+            System.out.printf("[CaseRegistry] ✅ Compiled %d case(s)%n", compiled.size());
+        } catch (Exception e) {
+            System.err.println("[CaseRegistry] ⚠️ Reload failed, keeping previous cases: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Opens a case. Unknown ids (or an empty registry) fall back to the whole pool with default odds.
+     * Returns null when there is nothing to drop.
+     */
+    public static Drop open(String caseId) {
+        ThreadLocalRandom rnd = ThreadLocalRandom.current();
+        CaseDefinition def = cases.get(caseId);
+        if (def != null) return def.open(rnd);
+
+        SkinPool.Entry skin = SkinPool.pick();
+        return skin == null ? null : CaseDefinition.roll(skin, DEFAULT_STATTRAK_CHANCE, rnd);
+    }
+
+    public static String displayName(String caseId) {
+        CaseDefinition def = cases.get(caseId);
+        if (def != null) return def.name;
+        return FALLBACK_CASES.getOrDefault(caseId, "Mystery Case");
+    }
+
+    /** Case id → display name in menu order. */
+    public static Map<String, String> menu() {
+        Map<String, CaseDefinition> current = cases;
+        if (current.isEmpty()) return FALLBACK_CASES;
+
+        Map<String, String> m = new LinkedHashMap<>();
+        current.values().forEach(c -> m.put(c.id, c.name));
+        return m;
+    }
+
+    private static CaseDefinition compile(Document d) {
+        String id = String.valueOf(d.get("_id"));
+        String name = d.getString("name") != null ? d.getString("name") : id;
+
+        List<String> ids = d.getList("skins", String.class, List.of());
+        List<SkinPool.Entry> contents = new ArrayList<>(ids.size());
+        for (String skinId : ids) {
+            SkinPool.Entry e = SkinPool.get(skinId);
+            if (e != null) contents.add(e);
+            else System.err.printf("[CaseRegistry] ⚠️ Case %s references unknown skin %s%n", id, skinId);
+        }
+        if (contents.isEmpty()) {
+            System.err.printf("[CaseRegistry] ⚠️ Case %s has no known skins, skipping%n", id);
+            return null;
+        }
+
+        Map<String, Double> odds = SkinPool.RARITY_ODDS;
+        Document oddsDoc = d.get("odds", Document.class);
+        if (oddsDoc != null && !oddsDoc.isEmpty()) {
+            Map<String, Double> custom = new LinkedHashMap<>();
+            oddsDoc.forEach((tier, v) -> {
+                if (v instanceof Number n && n.doubleValue() > 0) custom.put(tier, n.doubleValue());
+            });
+            if (!custom.isEmpty()) odds = custom;
+        }
+
+        double statTrak = d.get("statTrakChance") instanceof Number n ? n.doubleValue() : DEFAULT_STATTRAK_CHANCE;
+
+        SkinPool.Entry[] arr = contents.toArray(new SkinPool.Entry[0]);
+        return new CaseDefinition(id, name, statTrak, arr, new AliasTable(SkinPool.weights(arr, odds)));
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.cs2bot.cases;
+
+/**
+ * Result of a single case open: the skin plus its per-drop rolls.
+ */
+public final class Drop {
+    public final SkinPool.Entry skin;
+    public final boolean statTrak;
+    public final double floatValue;
+
+    public Drop(SkinPool.Entry skin, boolean statTrak, double floatValue) {
+        this.skin = skin;
+        this.statTrak = statTrak;
+        this.floatValue = floatValue;
+    }
+
+    /** Display name including the StatTrak™ prefix when rolled. */
+    public String displayName() {
+        return statTrak ? "StatTrak™ " + skin.name : skin.name;
+    }
+}
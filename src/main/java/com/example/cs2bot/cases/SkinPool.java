@@ -0,0 +1,247 @@
+package com.example.cs2bot.cases;
+
+import com.example.cs2bot.db.MongoUtil;
+import com.example.cs2bot.models.Skin;
+import com.example.cs2bot.utils.MarketNames;
+import com.example.cs2bot.utils.PriceUpdater;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Updates;
+import com.mongodb.client.model.UpdateOptions;
+import org.bson.Document;
+
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory copy of the {@code skins} collection used for case opening.
+ * The collection is loaded once into a compact array with an alias table on top,
+ * so a pick is O(1) and never touches MongoDB. A background poll on the
+ * {@code meta} collection reloads the pool whenever SeedSkins bumps the version,
+ * and price refreshes trigger an in-process reload.
+ * <p>
+ * {@link Skin#uncurated} skins (added by the feed sync with a guessed rarity) can be looked up
+ * but are left out of {@link #pick()}, so they don't shift the default odds.
+ */
+public final class SkinPool {
+
+    /** Published CS2 case odds per rarity tier. Tiers missing from the pool are renormalized away. */
+    public static final Map<String, Double> RARITY_ODDS;
+    static {
+        Map<String, Double> odds = new LinkedHashMap<>();
+        odds.put("Mil-Spec", 0.7992);
+        odds.put("Restricted", 0.1598);
+        odds.put("Classified", 0.0320);
+        odds.put("Covert", 0.0064);
+        odds.put("Extraordinary", 0.0026);
+        RARITY_ODDS = Collections.unmodifiableMap(odds);
+    }
+
+    /** Skins with a rarity outside {@link #RARITY_ODDS} are treated as base-tier drops. */
+    private static final String BASE_TIER = "Mil-Spec";
+    private static final String META_ID = "skins";
+    private static final String CASES_META_ID = "cases";
+    private static final long POLL_SECONDS = 60;
+
+    public static final class Entry {
+        public final String id;
+        public final String name;
+        public final String wear;
+        public final String rarity;
+        public final double price;
+        public final double floatValue;
+        public final double minFloat;
+        public final double maxFloat;
+        public final String image;
+        /** {@link MarketNames} id of {@link #marketHashName()}. */
+        public final int marketId;
+
+        Entry(String id, String name, String wear, String rarity, double price,
+              double floatValue, double minFloat, double maxFloat, String image) {
+            this.id = id;
+            this.name = name;
+            this.wear = wear;
+            this.rarity = rarity;
+            this.price = price;
+            this.floatValue = floatValue;
+            this.minFloat = minFloat;
+            this.maxFloat = maxFloat;
+            this.image = image;
+            this.marketId = MarketNames.id(marketHashName());
+        }
+
+        Entry withPrice(double livePrice) {
+            return new Entry(id, name, wear, rarity, livePrice, floatValue, minFloat, maxFloat, image);
+        }
+
+        /** Name as it appears on the market, e.g. "AK-47 | Redline (Field-Tested)". */
+        public String marketHashName() {
+            return wear == null || wear.isBlank() ? name : name + " (" + wear + ")";
+        }
+    }
+
+    private static final class Snapshot {
+        final Entry[] entries;
+        /** The curated entries, indexed by {@link #table}. */
+        final Entry[] drops;
+        final AliasTable table;
+        final Map<String, Entry> byId;
+        final long version;
+        final long casesVersion;
+
+        Snapshot(Entry[] entries, Entry[] drops, AliasTable table, Map<String, Entry> byId, long version, long casesVersion) {
+            this.entries = entries;
+            this.drops = drops;
+            this.table = table;
+            this.byId = byId;
+            this.version = version;
+            this.casesVersion = casesVersion;
+        }
+    }
+
+    private static final Snapshot EMPTY = new Snapshot(new Entry[0], new Entry[0], null, Map.of(), -1, -1);
+    private static volatile Snapshot snapshot = EMPTY;
+
+    private static final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "skin-pool");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private SkinPool() {}
+
+    /** Loads the pool and starts polling for catalogue changes. */
+    public static void start() {
+        load();
+        scheduler.scheduleWithFixedDelay(SkinPool::reloadIfChanged, POLL_SECONDS, POLL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /** Picks a skin weighted by rarity, or null if the pool is empty. */
+    public static Entry pick() {
+        Snapshot s = snapshot;
+        if (s.table == null) return null;
+        return s.drops[s.table.sample(ThreadLocalRandom.current())];
+    }
+
+    public static Entry get(String id) {
+        return id == null ? null : snapshot.byId.get(id);
+    }
+
+    /** Every skin in the current pool. */
+    public static List<Entry> entries() {
+        return List.of(snapshot.entries);
+    }
+
+    public static int size() {
+        return snapshot.entries.length;
+    }
+
+    /** Schedules a reload on the pool thread, e.g. after a price refresh. */
+    public static void requestReload() {
+        scheduler.execute(SkinPool::load);
+    }
+
+    /** Bumps the catalogue version so running bots reload on their next poll. */
+    public static void markChanged() {
+        bump(META_ID);
+    }
+
+    /** Bumps the case-definition version so running bots recompile their cases. */
+    public static void markCasesChanged() {
+        bump(CASES_META_ID);
+    }
+
+    private static void bump(String metaId) {
+        MongoUtil.meta().updateOne(Filters.eq("_id", metaId), Updates.inc("version", 1L), new UpdateOptions().upsert(true));
+    }
+
+    private static synchronized void reloadIfChanged() {
+        try {
+            Snapshot s = snapshot;
+            if (currentVersion(META_ID) != s.version) {
+                load();
+            } else {
+                long casesVersion = currentVersion(CASES_META_ID);
+                if (casesVersion != s.casesVersion) {
+                    CaseRegistry.reload();
+                    snapshot = new Snapshot(s.entries, s.drops, s.table, s.byId, s.version, casesVersion);
+                }
+            }
+        } catch (Exception e) {
+            System.err.println("[SkinPool] ⚠️ Version check failed: " + e.getMessage());
+        }
+    }
+
+    /** Reads the whole skins collection, atomically swaps in a new snapshot and recompiles cases. */
+    public static synchronized void load() {
+        try {
+            long version = currentVersion(META_ID);
+            long casesVersion = currentVersion(CASES_META_ID);
+            MongoCollection<Skin> skins = MongoUtil.skinModels();
+
+            List<Entry> entries = new ArrayList<>();
+            List<Entry> drops = new ArrayList<>();
+            for (Skin s : skins.find()) {
+                Entry e = toEntry(s);
+                if (e == null) continue;
+                entries.add(e);
+                if (!s.uncurated) drops.add(e);
+            }
+
+            Entry[] arr = entries.toArray(new Entry[0]);
+            Map<String, Entry> byId = new HashMap<>(arr.length * 2);
+            for (Entry e : arr) byId.put(e.id, e);
+
+            Entry[] dropArr = drops.toArray(new Entry[0]);
+            AliasTable table = dropArr.length == 0 ? null : new AliasTable(weights(dropArr, RARITY_ODDS));
+            snapshot = new Snapshot(arr, dropArr, table, byId, version, casesVersion);
+            System.out.printf("[SkinPool] ✅ Loaded %d skins, %d in the drop pool (version %d)%n",
+                    arr.length, dropArr.length, version);
+            CaseRegistry.reload();
+        } catch (Exception e) {
+            System.err.println("[SkinPool] ⚠️ Reload failed, keeping previous pool: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Per-skin weight = tier odds / skins in tier, so each tier hits its odds regardless of size.
+     * Rarities missing from {@code odds} fall into the base tier (or the first tier if that is missing too).
+     */
+    static double[] weights(Entry[] entries, Map<String, Double> odds) {
+        String base = odds.containsKey(BASE_TIER) ? BASE_TIER : odds.keySet().iterator().next();
+
+        Map<String, Integer> tierCounts = new HashMap<>();
+        for (Entry e : entries) tierCounts.merge(tierOf(e.rarity, odds, base), 1, Integer::sum);
+
+        double[] w = new double[entries.length];
+        for (int i = 0; i < entries.length; i++) {
+            String tier = tierOf(entries[i].rarity, odds, base);
+            w[i] = odds.get(tier) / tierCounts.get(tier);
+        }
+        return w;
+    }
+
+    private static String tierOf(String rarity, Map<String, Double> odds, String base) {
+        return odds.containsKey(rarity) ? rarity : base;
+    }
+
+    private static Entry toEntry(Skin s) {
+        if (s.id == null || s.name == null) return null;
+
+        String name = MarketNames.fixEncoding(s.name);
+        String wear = s.condition;
+        String rarity = s.rarity != null ? s.rarity : "Unknown";
+
+        Entry e = new Entry(s.id, name, wear, rarity, s.price, s.floatValue, s.minFloat, s.maxFloat, s.image);
+        double live = PriceUpdater.peekPriceEUR(e.marketId);
+        return live > 0 ? e.withPrice(live) : e;
+    }
+
+    private static long currentVersion(String metaId) {
+        Document d = MongoUtil.meta().find(Filters.eq("_id", metaId)).first();
+        return d != null && d.get("version") instanceof Number n ? n.longValue() : 0L;
+    }
+}
@@ -1,76 +1,145 @@
 package com.example.cs2bot.commands;
 
-import com.example.cs2bot.db.MongoUtil;
-import com.mongodb.client.MongoCollection;
+import com.example.cs2bot.cases.SkinPool;
+import com.example.cs2bot.db.InventoryQueries;
+import com.example.cs2bot.listeners.InteractionDispatcher;
+import com.example.cs2bot.models.User;
+import com.example.cs2bot.utils.PriceUpdater;
 import net.dv8tion.jda.api.EmbedBuilder;
+import net.dv8tion.jda.api.entities.MessageEmbed;
 import net.dv8tion.jda.api.events.interaction.command.SlashCommandInteractionEvent;
-import net.dv8tion.jda.api.hooks.ListenerAdapter;
-import org.bson.Document;
+import net.dv8tion.jda.api.events.interaction.component.ButtonInteractionEvent;
+import net.dv8tion.jda.api.interactions.components.ActionRow;
+import net.dv8tion.jda.api.interactions.components.buttons.Button;
+import net.dv8tion.jda.api.utils.messages.MessageEditBuilder;
+import net.dv8tion.jda.api.utils.messages.MessageEditData;
 
 import java.awt.*;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+
+/**
+ * /inventory [user] — shows one page of items at a time with prev/next buttons.
+ * Button ids carry the cursor as {@code inv:<ownerId>:<offset>}.
+ */
+public class InventoryCommand {
+
+    public static final String BUTTON_PREFIX = "inv:";
+    private static final Duration TIMEOUT = Duration.ofSeconds(8);
+
+    public static void handle(SlashCommandInteractionEvent event) {
+        net.dv8tion.jda.api.entities.User target = event.getOption("user") != null
+                ? event.getOption("user").getAsUser()
+                : event.getUser();
+
+        InteractionDispatcher.reply(event, "inventory", false, TIMEOUT, () -> {
+            InventoryQueries.Page page = InventoryQueries.page(target.getId(), 0, InventoryQueries.PAGE_SIZE);
+            if (page.total == 0) throw new InteractionDispatcher.Ephemeral("📦 This user has no items yet!");
+            return view(target.getName(), target.getId(), page);
+        });
+    }
 
-public class InventoryCommand extends ListenerAdapter {
-
-    @Override
-    public void onSlashCommandInteraction(SlashCommandInteractionEvent event) {
-        if (!event.getName().equals("inventory")) return;
-
-        MongoCollection<Document> inventories = MongoUtil.getDB().getCollection("inventories");
-
-        String targetId = event.getOption("user") != null
-                ? event.getOption("user").getAsUser().getId()
-                : event.getUser().getId();
-
-        Document userInv = inventories.find(new Document("_id", targetId)).first();
-
-        if (userInv == null || !userInv.containsKey("items")) {
-            event.reply("📦 This user has no items yet!").setEphemeral(true).queue();
+    /** Handles {@code inv:<ownerId>:<offset>} buttons by editing the message in place. */
+    public static void handlePage(ButtonInteractionEvent event) {
+        String[] parts = event.getComponentId().split(":");
+        if (parts.length != 3) {
+            event.reply("⚠️ Invalid page button.").setEphemeral(true).queue();
             return;
         }
 
-        List<Document> items = userInv.getList("items", Document.class);
-
-        if (items.isEmpty()) {
-            event.reply("📦 This user has an empty inventory.").setEphemeral(true).queue();
+        String ownerId = parts[1];
+        int offset;
+        try {
+            offset = Integer.parseInt(parts[2]);
+        } catch (NumberFormatException e) {
+            event.reply("⚠️ Invalid page button.").setEphemeral(true).queue();
             return;
         }
 
+        String ownerName = event.getJDA().getUserById(ownerId) != null
+                ? event.getJDA().getUserById(ownerId).getName()
+                : "User " + ownerId;
+
+        InteractionDispatcher.edit(event, "inventory_page", TIMEOUT, () ->
+                view(ownerName, ownerId, InventoryQueries.page(ownerId, offset, InventoryQueries.PAGE_SIZE)));
+    }
+
+    private static MessageEditData view(String ownerName, String ownerId, InventoryQueries.Page page) {
+        return new MessageEditBuilder()
+                .setEmbeds(render(ownerName, page))
+                .setComponents(buttons(ownerId, page))
+                .build();
+    }
+
+    private static MessageEmbed render(String ownerName, InventoryQueries.Page page) {
         EmbedBuilder embed = new EmbedBuilder()
-                .setTitle(event.getUser().getName() + "'s Inventory 🎒")
+                .setTitle(ownerName + "'s Inventory 🎒")
                 .setColor(Color.ORANGE);
 
-        StringBuilder desc = new StringBuilder();
-        int limit = Math.min(items.size(), 10); // Show up to 10 items
-
-        for (int i = 0; i < limit; i++) {
-            Document item = items.get(i);
-            String name = item.getString("name");
-            String rarity = item.getString("rarity");
-            String wear = item.getString("wear");
-            Double price = item.getDouble("price");
-            Double fl = item.getDouble("float");
-
-            Color rarityColor = switch (rarity == null ? "" : rarity) {
-                case "Consumer Grade" -> new Color(211, 211, 211);
-                case "Industrial Grade" -> new Color(94, 152, 217);
-                case "Mil-Spec" -> new Color(75, 105, 255);
-                case "Restricted" -> new Color(136, 71, 255);
-                case "Classified" -> new Color(211, 44, 230);
-                case "Covert" -> new Color(235, 75, 75);
-                case "Extraordinary" -> new Color(255, 215, 0);
-                default -> Color.WHITE;
-            };
-
-            embed.setColor(rarityColor);
+        // One batch lookup for the whole page instead of a query per item
+        List<String> marketNames = new ArrayList<>();
+        for (User.InventoryItem item : page.items) {
+            SkinPool.Entry skin = SkinPool.get(item.skin_id);
+            if (skin != null) marketNames.add(skin.marketHashName());
+        }
+        Map<String, Double> prices = PriceUpdater.getPricesEUR(marketNames);
 
+        StringBuilder desc = new StringBuilder();
+        double pageValue = 0;
+        for (int i = 0; i < page.items.size(); i++) {
+            User.InventoryItem item = page.items.get(i);
+            SkinPool.Entry skin = SkinPool.get(item.skin_id);
+            String name = skin != null ? skin.name : item.skin_id;
+            String rarity = skin != null ? skin.rarity : "Unknown";
+            String wear = skin != null ? skin.wear : "?";
+            double price = skin != null ? prices.getOrDefault(skin.marketHashName(), skin.price) : 0.0;
+            pageValue += price;
+            if (item.statTrak) name = "StatTrak™ " + name;
+
+            embed.setColor(rarityColor(rarity));
+
+            // #n is the position /trade refers to; 🔒 marks items held by a pending trade
             desc.append(String.format(
-                    "🎯 **%s** (%s)\n💧 Float: %.4f | 💶 €%.2f | ⭐ %s\n\n",
-                    name, wear, fl != null ? fl : 0.0, price != null ? price : 0.0, rarity
+                    "`#%d` 🎯 **%s** (%s)%s\n💧 Float: %.4f | 💶 €%.2f | ⭐ %s\n\n",
+                    page.offset + i + 1, name, wear, item.reservedBy != null ? " 🔒" : "",
+                    item.floatValue, price, rarity
             ));
         }
 
+        int pages = (page.total + InventoryQueries.PAGE_SIZE - 1) / InventoryQueries.PAGE_SIZE;
+        int current = page.offset / InventoryQueries.PAGE_SIZE + 1;
+
         embed.setDescription(desc.toString());
-        event.replyEmbeds(embed.build()).queue();
+        embed.setFooter("Page " + current + "/" + pages + " • " + page.total + " item(s) • Page value €"
+                + String.format("%.2f", pageValue));
+        return embed.build();
+    }
+
+    private static ActionRow buttons(String ownerId, InventoryQueries.Page page) {
+        int prev = Math.max(0, page.offset - InventoryQueries.PAGE_SIZE);
+        int next = page.offset + InventoryQueries.PAGE_SIZE;
+
+        Button prevButton = Button.secondary(BUTTON_PREFIX + ownerId + ":" + prev, "◀ Prev");
+        Button nextButton = Button.secondary(BUTTON_PREFIX + ownerId + ":" + next, "Next ▶");
+
+        return ActionRow.of(
+                page.hasPrev() ? prevButton : prevButton.asDisabled(),
+                page.hasNext() ? nextButton : nextButton.asDisabled()
+        );
+    }
+
+    private static Color rarityColor(String rarity) {
+        return switch (rarity == null ? "" : rarity) {
+            case "Consumer Grade" -> new Color(211, 211, 211);
+            case "Industrial Grade" -> new Color(94, 152, 217);
+            case "Mil-Spec" -> new Color(75, 105, 255);
+            case "Restricted" -> new Color(136, 71, 255);
+            case "Classified" -> new Color(211, 44, 230);
+            case "Covert" -> new Color(235, 75, 75);
+            case "Extraordinary" -> new Color(255, 215, 0);
+            default -> Color.WHITE;
+        };
     }
 }
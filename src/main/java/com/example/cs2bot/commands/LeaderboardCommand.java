@@ -0,0 +1,44 @@
+package com.example.cs2bot.commands;
+
+import com.example.cs2bot.listeners.InteractionDispatcher;
+import com.example.cs2bot.valuation.Valuation;
+import net.dv8tion.jda.api.EmbedBuilder;
+import net.dv8tion.jda.api.events.interaction.command.SlashCommandInteractionEvent;
+import net.dv8tion.jda.api.utils.messages.MessageEditBuilder;
+import net.dv8tion.jda.api.utils.messages.MessageEditData;
+
+import java.awt.*;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * /leaderboard — the most valuable inventories. Reads the totals kept by {@link Valuation},
+ * so it is one indexed query no matter how many items people own.
+ */
+public class LeaderboardCommand {
+
+    private static final int SIZE = 10;
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    public static void handle(SlashCommandInteractionEvent event) {
+        InteractionDispatcher.reply(event, "leaderboard", false, TIMEOUT, () -> {
+            List<Valuation.Standing> top = Valuation.leaderboard(SIZE);
+            if (top.isEmpty()) return MessageEditData.fromContent("🏆 Nobody has any valued items yet!");
+
+            StringBuilder desc = new StringBuilder();
+            for (int i = 0; i < top.size(); i++) {
+                Valuation.Standing s = top.get(i);
+                desc.append(String.format("`#%d` <@%s> — 💶 €%.2f\n", i + 1, s.userId(), s.cents() / 100.0));
+            }
+
+            return new MessageEditBuilder()
+                    .setEmbeds(new EmbedBuilder()
+                            .setTitle("🏆 Inventory Leaderboard")
+                            .setColor(Color.ORANGE)
+                            .setDescription(desc.toString())
+                            .setFooter("Values follow each price refresh")
+                            .build())
+                    .build();
+        });
+    }
+}
@@ -0,0 +1,173 @@
+package com.example.cs2bot.commands;
+
+import com.example.cs2bot.cases.SkinPool;
+import com.example.cs2bot.db.InventoryQueries;
+import com.example.cs2bot.listeners.InteractionDispatcher;
+import com.example.cs2bot.models.Trade;
+import com.example.cs2bot.models.User;
+import com.example.cs2bot.trade.TradeEngine;
+import net.dv8tion.jda.api.EmbedBuilder;
+import net.dv8tion.jda.api.entities.MessageEmbed;
+import net.dv8tion.jda.api.events.interaction.command.SlashCommandInteractionEvent;
+import net.dv8tion.jda.api.events.interaction.component.ButtonInteractionEvent;
+import net.dv8tion.jda.api.interactions.commands.OptionMapping;
+import net.dv8tion.jda.api.interactions.components.ActionRow;
+import net.dv8tion.jda.api.interactions.components.buttons.Button;
+import net.dv8tion.jda.api.utils.messages.MessageEditBuilder;
+import net.dv8tion.jda.api.utils.messages.MessageEditData;
+
+import java.awt.*;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * /trade user:@someone [offer:"1,3"] [request:"2"] — items are referred to by the
+ * {@code #n} positions /inventory shows. The recipient gets accept/decline buttons and the
+ * sender a cancel button; ids are {@code trade:<action>:<tradeId>:<allowedUserId>}.
+ */
+public class TradeCommand {
+
+    public static final String BUTTON_PREFIX = "trade:";
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+    public static void handle(SlashCommandInteractionEvent event) {
+        OptionMapping userOpt = event.getOption("user");
+        if (userOpt == null) {
+            event.reply("Usage: `/trade user:@someone offer:1,3 request:2` (numbers from `/inventory`)")
+                    .setEphemeral(true).queue();
+            return;
+        }
+
+        net.dv8tion.jda.api.entities.User target = userOpt.getAsUser();
+        String fromId = event.getUser().getId();
+        List<Integer> offerPositions;
+        List<Integer> requestPositions;
+        try {
+            offerPositions = positions(event.getOption("offer"));
+            requestPositions = positions(event.getOption("request"));
+        } catch (NumberFormatException e) {
+            event.reply("⚠️ Items are listed by their `#` number from `/inventory`, e.g. `1, 4, 7`.")
+                    .setEphemeral(true).queue();
+            return;
+        }
+
+        if (target.isBot()) {
+            event.reply("⚠️ Bots don't trade.").setEphemeral(true).queue();
+            return;
+        }
+
+        InteractionDispatcher.reply(event, "trade", false, TIMEOUT, () -> {
+            try {
+                List<User.InventoryItem> offer = resolve(fromId, offerPositions, "You have");
+                List<User.InventoryItem> request = resolve(target.getId(), requestPositions, target.getName() + " has");
+                Trade t = TradeEngine.propose(fromId, target.getId(), offer, request);
+                return view(t, "⏳ Waiting for <@" + t.to + "> to accept.", true);
+            } catch (TradeEngine.TradeException e) {
+                // Only the proposer needs to see why the trade couldn't be opened
+                throw new InteractionDispatcher.Ephemeral("⚠️ " + e.getMessage());
+            }
+        });
+    }
+
+    /** Handles {@code trade:<accept|decline|cancel>:<tradeId>:<allowedUserId>} buttons. */
+    public static void handleButton(ButtonInteractionEvent event) {
+        String[] parts = event.getComponentId().split(":");
+        if (parts.length != 4) {
+            event.reply("⚠️ Invalid trade button.").setEphemeral(true).queue();
+            return;
+        }
+
+        String action = parts[1];
+        String tradeId = parts[2];
+        String actorId = event.getUser().getId();
+        if (!actorId.equals(parts[3])) {
+            event.reply("⚠️ This button isn't for you.").setEphemeral(true).queue();
+            return;
+        }
+
+        InteractionDispatcher.edit(event, "trade_" + action, TIMEOUT, () -> {
+            try {
+                Trade t = switch (action) {
+                    case "accept" -> TradeEngine.accept(tradeId, actorId);
+                    case "decline" -> TradeEngine.decline(tradeId, actorId);
+                    case "cancel" -> TradeEngine.cancel(tradeId, actorId);
+                    default -> throw new IllegalArgumentException("unknown trade action " + action);
+                };
+                return view(t, statusLine(t), false);
+            } catch (TradeEngine.TradeException e) {
+                // Keep the embed; drop the buttons once the trade can no longer change
+                MessageEditBuilder msg = new MessageEditBuilder().setContent("⚠️ " + e.getMessage());
+                if (e.closed) msg.setComponents(List.of());
+                return msg.build();
+            }
+        });
+    }
+
+    private static List<User.InventoryItem> resolve(String userId, List<Integer> positions, String owner) {
+        if (positions.isEmpty()) return List.of();
+        List<User.InventoryItem> items = InventoryQueries.itemsAt(userId, positions);
+        for (int i = 0; i < items.size(); i++) {
+            if (items.get(i) == null) {
+                throw new TradeEngine.TradeException(owner + " no item #" + positions.get(i) + ".", false);
+            }
+        }
+        return items;
+    }
+
+    private static List<Integer> positions(OptionMapping opt) {
+        List<Integer> out = new ArrayList<>();
+        if (opt == null) return out;
+        for (String part : opt.getAsString().split("[,\\s]+")) {
+            String p = part.replace("#", "").trim();
+            if (!p.isEmpty()) out.add(Integer.parseInt(p));
+        }
+        return out;
+    }
+
+    private static String statusLine(Trade t) {
+        return switch (t.status) {
+            case Trade.COMPLETED -> "✅ Trade completed.";
+            case Trade.DECLINED -> "❌ <@" + t.to + "> declined the trade.";
+            case Trade.CANCELLED -> "🚫 <@" + t.from + "> cancelled the trade.";
+            case Trade.EXPIRED -> "⌛ This trade expired.";
+            default -> "Trade " + t.status + ".";
+        };
+    }
+
+    private static MessageEditData view(Trade t, String content, boolean open) {
+        MessageEditBuilder msg = new MessageEditBuilder()
+                .setContent(content)
+                .setEmbeds(render(t));
+        if (open) {
+            msg.setComponents(ActionRow.of(
+                    Button.success(BUTTON_PREFIX + "accept:" + t.id + ":" + t.to, "Accept"),
+                    Button.danger(BUTTON_PREFIX + "decline:" + t.id + ":" + t.to, "Decline"),
+                    Button.secondary(BUTTON_PREFIX + "cancel:" + t.id + ":" + t.from, "Cancel")));
+        } else {
+            msg.setComponents(List.of());
+        }
+        return msg.build();
+    }
+
+    private static MessageEmbed render(Trade t) {
+        return new EmbedBuilder()
+                .setTitle("💱 Trade offer")
+                .setColor(Trade.COMPLETED.equals(t.status) ? Color.GREEN
+                        : Trade.PENDING.equals(t.status) ? Color.ORANGE : Color.GRAY)
+                .addField("Offered", "<@" + t.from + ">\n" + list(t.offer), true)
+                .addField("Requested", "<@" + t.to + ">\n" + list(t.request), true)
+                .setFooter("Trade " + t.id)
+                .build();
+    }
+
+    private static String list(List<Trade.OfferItem> items) {
+        if (items.isEmpty()) return "*nothing*";
+        StringBuilder sb = new StringBuilder();
+        for (Trade.OfferItem o : items) {
+            SkinPool.Entry skin = SkinPool.get(o.skin_id);
+            sb.append("• ").append(skin != null ? skin.name + " (" + skin.wear + ")" : o.skin_id).append('\n');
+        }
+        return sb.toString();
+    }
+}
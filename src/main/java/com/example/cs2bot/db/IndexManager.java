@@ -0,0 +1,155 @@
+package com.example.cs2bot.db;
+
+import com.mongodb.MongoCommandException;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.IndexModel;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.Indexes;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Declares the secondary indexes each collection needs and creates them at startup.
+ * {@code createIndexes} is a no-op for indexes that already exist with the same spec,
+ * so this is safe on every boot. {@link #verifyQueryPlans()} runs {@code explain()} on
+ * the hot queries and reports any that would still scan the whole collection.
+ */
+public final class IndexManager {
+
+    /** Price documents not refreshed for this long are dropped by MongoDB's TTL monitor. */
+    public static final long PRICE_TTL_DAYS = 14;
+
+    record HotQuery(String name, Supplier<MongoCollection<Document>> collection, Bson filter) {}
+
+    private IndexManager() {}
+
+    private static Map<String, List<IndexModel>> declared() {
+        Map<String, List<IndexModel>> m = new LinkedHashMap<>();
+        m.put("users", List.of(
+                new IndexModel(Indexes.ascending("inventory.uid"),
+                        new IndexOptions().name("inventory_uid").sparse(true)),
+                new IndexModel(Indexes.ascending("inventory.reservedBy"),
+                        new IndexOptions().name("inventory_reservedBy").sparse(true)),
+                new IndexModel(Indexes.descending("inventoryCents"),
+                        new IndexOptions().name("inventoryCents_desc"))
+        ));
+        m.put("holdings", List.of(
+                new IndexModel(Indexes.ascending("skin"),
+                        new IndexOptions().name("skin"))
+        ));
+        m.put("trades", List.of(
+                new IndexModel(Indexes.ascending("status", "createdAt"),
+                        new IndexOptions().name("status_createdAt")),
+                new IndexModel(Indexes.ascending("from", "status"),
+                        new IndexOptions().name("from_status")),
+                new IndexModel(Indexes.ascending("to", "status"),
+                        new IndexOptions().name("to_status"))
+        ));
+        m.put("prices", List.of(
+                new IndexModel(Indexes.ascending("updated"),
+                        new IndexOptions().name("updated_ttl").expireAfter(PRICE_TTL_DAYS, TimeUnit.DAYS))
+        ));
+        m.put("price_history", List.of(
+                new IndexModel(Indexes.ascending("res", "day"),
+                        new IndexOptions().name("res_day"))
+        ));
+        m.put("skins", List.of(
+                new IndexModel(Indexes.ascending("rarity"),
+                        new IndexOptions().name("rarity"))
+        ));
+        m.put("cases", List.of(
+                new IndexModel(Indexes.ascending("order"),
+                        new IndexOptions().name("order"))
+        ));
+        return m;
+    }
+
+    static List<HotQuery> hotQueries() {
+        Date now = new Date();
+        return List.of(
+                new HotQuery("pending trades by age", MongoUtil::trades,
+                        Filters.and(Filters.eq("status", "pending"), Filters.lt("createdAt", now))),
+                new HotQuery("open trades from user", MongoUtil::trades,
+                        Filters.and(Filters.eq("from", "0"), Filters.eq("status", "pending"))),
+                new HotQuery("open trades to user", MongoUtil::trades,
+                        Filters.and(Filters.eq("to", "0"), Filters.eq("status", "pending"))),
+                new HotQuery("owner of item", MongoUtil::users,
+                        Filters.eq("inventory.uid", "0")),
+                new HotQuery("users with reserved items", MongoUtil::users,
+                        Filters.exists("inventory.reservedBy")),
+                new HotQuery("holders of changed skins", MongoUtil::holdings,
+                        Filters.in("skin", List.of("0", "1"))),
+                new HotQuery("inventory leaderboard", MongoUtil::users,
+                        Filters.gt("inventoryCents", 0)),
+                new HotQuery("stale prices", MongoUtil::prices,
+                        Filters.lt("updated", now)),
+                new HotQuery("history days to downsample", MongoUtil::priceHistory,
+                        Filters.and(Filters.eq("res", "raw"), Filters.lt("day", now))),
+                new HotQuery("skins by rarity", MongoUtil::skins,
+                        Filters.eq("rarity", "Covert"))
+        );
+    }
+
+    /** Creates every declared index. Failures are logged per collection and never stop startup. */
+    public static void ensureIndexes() {
+        declared().forEach((collection, indexes) -> {
+            try {
+                List<String> names = MongoUtil.getDB().getCollection(collection).createIndexes(indexes);
+                System.out.println("[IndexManager] ✅ " + collection + ": " + names);
+            } catch (MongoCommandException e) {
+                // 85/86: an index with this name or key already exists with different options
+                System.err.printf("[IndexManager] ⚠️ %s: %s (code %d) — drop the old index to apply the new spec%n",
+                        collection, e.getErrorMessage(), e.getErrorCode());
+            } catch (Exception e) {
+                System.err.println("[IndexManager] ⚠️ " + collection + ": " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Explains each hot query and returns the ones whose winning plan contains a COLLSCAN.
+     * An empty list means every hot query is served by an index.
+     */
+    public static List<String> verifyQueryPlans() {
+        List<String> scans = new ArrayList<>();
+        for (HotQuery q : hotQueries()) {
+            try {
+                Object winning = winningPlan(q);
+                if (winning == null || containsStage(winning, "COLLSCAN")) scans.add(q.name());
+            } catch (Exception e) {
+                System.err.println("[IndexManager] ⚠️ Could not explain \"" + q.name() + "\": " + e.getMessage());
+            }
+        }
+
+        if (scans.isEmpty()) System.out.println("[IndexManager] ✅ All hot queries use an index");
+        else System.err.println("[IndexManager] ⚠️ Collection scans in: " + scans);
+        return scans;
+    }
+
+    /** The {@code queryPlanner.winningPlan} of {@code explain()} for {@code q}, or null if absent. */
+    static Object winningPlan(HotQuery q) {
+        Document explain = q.collection().get().find(q.filter()).explain();
+        Document planner = explain.get("queryPlanner", Document.class);
+        return planner != null ? planner.get("winningPlan") : null;
+    }
+
+    /** Walks a plan tree (inputStage / inputStages / queryPlan) looking for {@code stage}. */
+    static boolean containsStage(Object node, String stage) {
+        if (node instanceof Document d) {
+            if (stage.equals(d.getString("stage"))) return true;
+            for (Object child : d.values()) {
+                if (containsStage(child, stage)) return true;
+            }
+        } else if (node instanceof List<?> list) {
+            for (Object child : list) {
+                if (containsStage(child, stage)) return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.cs2bot.db;
+
+import com.example.cs2bot.models.User;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Filters;
+import org.bson.Document;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Inventory reads that let MongoDB do the counting and slicing, so only the
+ * requested page of {@code users.inventory} ever crosses the wire.
+ */
+public final class InventoryQueries {
+
+    public static final int PAGE_SIZE = 10;
+
+    public static final class Page {
+        public final List<User.InventoryItem> items;
+        public final int offset;
+        public final int total;
+
+        Page(List<User.InventoryItem> items, int offset, int total) {
+            this.items = items;
+            this.offset = offset;
+            this.total = total;
+        }
+
+        public boolean hasPrev() {
+            return offset > 0;
+        }
+
+        public boolean hasNext() {
+            return offset + items.size() < total;
+        }
+    }
+
+    private InventoryQueries() {}
+
+    /** Item count via {@code $size}; 0 for unknown users. */
+    public static int count(String userId) {
+        Document d = MongoUtil.users().aggregate(List.of(
+                Aggregates.match(Filters.eq("_id", userId)),
+                Aggregates.project(new Document("_id", 0).append("total", sizeOfInventory()))
+        )).first();
+        return d == null ? 0 : d.getInteger("total", 0);
+    }
+
+    /**
+     * One page of items plus the total, in a single round trip. {@code offset} is the
+     * cursor carried by the next/prev buttons and is clamped to the last page.
+     */
+    public static Page page(String userId, int offset, int limit) {
+        int start = Math.max(0, offset);
+        Document d = MongoUtil.users().aggregate(List.of(
+                Aggregates.match(Filters.eq("_id", userId)),
+                Aggregates.project(new Document("_id", 0)
+                        .append("total", sizeOfInventory())
+                        .append("items", new Document("$slice", List.of(
+                                new Document("$ifNull", List.of("$inventory", List.of())), start, limit))))
+        )).first();
+
+        if (d == null) return new Page(List.of(), 0, 0);
+
+        int total = d.getInteger("total", 0);
+        if (start >= total && total > 0) {
+            // Inventory shrank since the button was rendered; jump to the last page
+            return page(userId, ((total - 1) / limit) * limit, limit);
+        }
+
+        List<User.InventoryItem> items = new ArrayList<>();
+        for (Document item : d.getList("items", Document.class, List.of())) {
+            items.add(User.InventoryItem.fromDocument(item));
+        }
+        return new Page(items, start, total);
+    }
+
+    /**
+     * Items at the given 1-based positions (as numbered by /inventory), fetched with one
+     * {@code $arrayElemAt} per position. Positions past the end come back as null.
+     */
+    public static List<User.InventoryItem> itemsAt(String userId, List<Integer> positions) {
+        List<Object> picks = new ArrayList<>(positions.size());
+        for (int pos : positions) {
+            picks.add(new Document("$arrayElemAt", List.of(
+                    new Document("$ifNull", List.of("$inventory", List.of())), Math.max(0, pos - 1))));
+        }
+
+        Document d = MongoUtil.users().aggregate(List.of(
+                Aggregates.match(Filters.eq("_id", userId)),
+                Aggregates.project(new Document("_id", 0).append("items", picks))
+        )).first();
+
+        List<User.InventoryItem> items = new ArrayList<>(positions.size());
+        List<?> raw = d == null ? List.of() : d.getList("items", Object.class, List.of());
+        for (int i = 0; i < positions.size(); i++) {
+            Object o = i < raw.size() ? raw.get(i) : null;
+            items.add(positions.get(i) >= 1 && o instanceof Document item ? User.InventoryItem.fromDocument(item) : null);
+        }
+        return items;
+    }
+
+    private static Document sizeOfInventory() {
+        return new Document("$size", new Document("$ifNull", List.of("$inventory", List.of())));
+    }
+}
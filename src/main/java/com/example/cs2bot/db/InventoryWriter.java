@@ -0,0 +1,216 @@
+package com.example.cs2bot.db;
+
+import com.example.cs2bot.models.User;
+import com.example.cs2bot.valuation.Valuation;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.client.model.*;
+import org.bson.Document;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Write-behind queue for unboxed items. Drops are buffered in memory and flushed
+ * every {@link #FLUSH_INTERVAL_MS} or as soon as {@link #MAX_BATCH} are waiting.
+ * A flush coalesces all drops for the same user into one {@code $push/$each + $inc}
+ * and sends everything in a single unordered {@code bulkWrite}.
+ * <p>
+ * A user update the server rejects (validation, the 16 MB document limit) is retried up to
+ * {@link #MAX_ATTEMPTS} times and then moved to {@code inventory_dead_letters}, so one bad
+ * inventory can't keep the writer busy forever. A batch that fails as a whole (network,
+ * timeout) is retried without counting against that limit.
+ */
+public final class InventoryWriter {
+
+    private static final int MAX_BATCH = 500;
+    private static final long FLUSH_INTERVAL_MS = 1000;
+    private static final int MAX_ATTEMPTS = 5;
+
+    private record Pending(String userId, User.InventoryItem item, int attempts) {}
+
+    private static final ConcurrentLinkedQueue<Pending> queue = new ConcurrentLinkedQueue<>();
+    private static final AtomicInteger depth = new AtomicInteger();
+    private static final AtomicBoolean flushRequested = new AtomicBoolean();
+    private static final LongAdder deadLettered = new LongAdder();
+
+    /** Enqueuers hold the read lock across check-and-add; shutdown flips {@link #accepting} under the write lock. */
+    private static final ReentrantReadWriteLock gate = new ReentrantReadWriteLock();
+    private static boolean accepting = true;
+
+    private static final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "inventory-writer");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private InventoryWriter() {}
+
+    public static void start() {
+        scheduler.scheduleWithFixedDelay(InventoryWriter::flushSafely,
+                FLUSH_INTERVAL_MS, FLUSH_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        System.out.println("📝 Inventory writer started (batch=" + MAX_BATCH + ", interval=" + FLUSH_INTERVAL_MS + "ms)");
+    }
+
+    /**
+     * Queues an item for the user's inventory. Returns false once shutdown has begun; a drop
+     * for which it returned true is always part of the final drain.
+     */
+    public static boolean enqueue(String userId, User.InventoryItem item) {
+        gate.readLock().lock();
+        try {
+            if (!accepting) return false;
+            queue.add(new Pending(userId, item, 0));
+        } finally {
+            gate.readLock().unlock();
+        }
+        if (depth.incrementAndGet() >= MAX_BATCH && flushRequested.compareAndSet(false, true)) {
+            scheduler.execute(InventoryWriter::flushSafely);
+        }
+        return true;
+    }
+
+    /** Number of drops waiting to be written. */
+    public static int queueDepth() {
+        return depth.get();
+    }
+
+    /** Drops moved to the dead-letter collection since startup. */
+    public static long deadLettered() {
+        return deadLettered.sum();
+    }
+
+    /** Stops accepting drops, writes everything still queued and stops the flush thread. */
+    public static void shutdown() {
+        gate.writeLock().lock();
+        try {
+            accepting = false;
+        } finally {
+            gate.writeLock().unlock();
+        }
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // Whatever the scheduler did not get to is written from the calling thread. Rejected updates
+        // are dead-lettered right away, so every round settles drops until the queue is empty or
+        // MongoDB can't be reached at all.
+        while (depth.get() > 0 && flush(true) > 0) { }
+
+        Pending p;
+        while ((p = queue.poll()) != null) {
+            System.err.println("[InventoryWriter] ❌ Unwritten drop for " + p.userId() + ": " + p.item().toDocument().toJson());
+        }
+        System.out.println("📝 Inventory writer stopped (" + depth.get() + " drop(s) left unwritten)");
+    }
+
+    private static void flushSafely() {
+        flushRequested.set(false);
+        try {
+            while (flush(false) >= MAX_BATCH) { }
+        } catch (Exception e) {
+            System.err.println("[InventoryWriter] ⚠️ Flush failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Writes up to MAX_BATCH queued drops. Returns how many were settled: written, or given up
+     * on and dead-lettered. Drops put back for another attempt don't count, so callers looping
+     * on the result can't spin on updates that keep failing. {@code finalAttempt} dead-letters
+     * rejected updates without retrying.
+     */
+    private static int flush(boolean finalAttempt) {
+        List<Pending> batch = new ArrayList<>(Math.min(depth.get(), MAX_BATCH));
+        Pending p;
+        while (batch.size() < MAX_BATCH && (p = queue.poll()) != null) batch.add(p);
+        if (batch.isEmpty()) return 0;
+        depth.addAndGet(-batch.size());
+
+        Map<String, List<Pending>> byUser = new LinkedHashMap<>();
+        for (Pending pending : batch) byUser.computeIfAbsent(pending.userId(), k -> new ArrayList<>()).add(pending);
+
+        List<String> userIds = new ArrayList<>(byUser.keySet());
+        List<WriteModel<Document>> writes = new ArrayList<>(userIds.size());
+        for (String userId : userIds) {
+            List<Pending> items = byUser.get(userId);
+            // Encoded by ModelCodecs when the bulk write is sent, no Document per item
+            List<User.InventoryItem> drops = new ArrayList<>(items.size());
+            for (Pending pending : items) drops.add(pending.item());
+
+            writes.add(new UpdateOneModel<>(
+                    Filters.eq("_id", userId),
+                    Updates.combine(
+                            Updates.pushEach("inventory", drops),
+                            Updates.inc("casesOpened", drops.size()),
+                            Updates.setOnInsert("keys", 0)),
+                    new UpdateOptions().upsert(true)));
+        }
+
+        Set<String> failed = new HashSet<>();
+        int settled = batch.size();
+        try {
+            MongoUtil.users().bulkWrite(writes, new BulkWriteOptions().ordered(false));
+        } catch (MongoBulkWriteException e) {
+            // Unordered: only the failed users' drops are retried, each a bounded number of times
+            List<Pending> retry = new ArrayList<>();
+            for (BulkWriteError err : e.getWriteErrors()) {
+                String userId = userIds.get(err.getIndex());
+                failed.add(userId);
+                for (Pending pending : byUser.get(userId)) {
+                    if (finalAttempt || pending.attempts() + 1 >= MAX_ATTEMPTS) {
+                        deadLetter(pending, err.getMessage());
+                    } else {
+                        retry.add(new Pending(pending.userId(), pending.item(), pending.attempts() + 1));
+                        settled--;
+                    }
+                }
+            }
+            requeue(retry);
+            System.err.printf("[InventoryWriter] ⚠️ %d of %d user update(s) failed, %d drop(s) requeued%n",
+                    e.getWriteErrors().size(), writes.size(), retry.size());
+        } catch (Exception e) {
+            requeue(batch);
+            System.err.println("[InventoryWriter] ⚠️ Bulk write failed, requeued " + batch.size() + " drop(s): " + e.getMessage());
+            return 0;
+        }
+
+        Map<String, List<String>> added = new HashMap<>();
+        byUser.forEach((userId, items) -> {
+            if (failed.contains(userId)) return;
+            List<String> skins = added.computeIfAbsent(userId, k -> new ArrayList<>(items.size()));
+            for (Pending pending : items) skins.add(pending.item().skin_id);
+        });
+        Valuation.itemsAdded(added);
+        return settled;
+    }
+
+    /** Keeps a drop the server keeps rejecting; logged in full if even that write fails. */
+    private static void deadLetter(Pending pending, String error) {
+        deadLettered.increment();
+        Document item = pending.item().toDocument();
+        try {
+            MongoUtil.inventoryDeadLetters().insertOne(new Document("userId", pending.userId())
+                    .append("item", item)
+                    .append("error", error)
+                    .append("attempts", pending.attempts() + 1)
+                    .append("at", new Date()));
+            System.err.println("[InventoryWriter] ❌ Gave up on a drop for " + pending.userId() + ", moved to inventory_dead_letters: " + error);
+        } catch (Exception e) {
+            System.err.println("[InventoryWriter] ❌ Gave up on a drop for " + pending.userId() + " (" + error + "): " + item.toJson());
+        }
+    }
+
+    private static void requeue(List<Pending> items) {
+        queue.addAll(items);
+        depth.addAndGet(items.size());
+    }
+}
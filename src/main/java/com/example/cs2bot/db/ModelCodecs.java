@@ -0,0 +1,331 @@
+package com.example.cs2bot.db;
+
+import com.example.cs2bot.models.Skin;
+import com.example.cs2bot.models.Trade;
+import com.example.cs2bot.models.User;
+import com.mongodb.MongoClientSettings;
+import org.bson.*;
+import org.bson.codecs.*;
+import org.bson.codecs.configuration.CodecRegistries;
+import org.bson.codecs.configuration.CodecRegistry;
+import org.bson.types.ObjectId;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Hand-written codecs for the models, registered on the shared client by {@link MongoUtil}.
+ * They read and write BSON straight from the wire, so loading a user with a large inventory
+ * no longer builds a {@link Document} per item first. Unknown fields are skipped on decode;
+ * numeric fields accept any BSON number type, matching what older documents contain.
+ * <p>
+ * Encoding writes the whole model, so use {@code replaceOne} with these only when the model
+ * owns every field of the document — partial changes should stay {@code $set}/{@code $push} updates.
+ */
+public final class ModelCodecs {
+
+    private ModelCodecs() {}
+
+    public static CodecRegistry registry() {
+        InventoryItemCodec items = new InventoryItemCodec();
+        OfferItemCodec offers = new OfferItemCodec();
+        return CodecRegistries.fromRegistries(
+                MongoClientSettings.getDefaultCodecRegistry(),
+                CodecRegistries.fromCodecs(items, new UserCodec(items), offers, new TradeCodec(offers), new SkinCodec()));
+    }
+
+    public static final class InventoryItemCodec implements Codec<User.InventoryItem> {
+        @Override
+        public void encode(BsonWriter w, User.InventoryItem item, EncoderContext ctx) {
+            w.writeStartDocument();
+            if (item.uid != null) w.writeString("uid", item.uid);
+            writeString(w, "skin_id", item.skin_id);
+            w.writeInt64("acquiredAt", item.acquiredAt);
+            w.writeBoolean("statTrak", item.statTrak);
+            w.writeDouble("float", item.floatValue);
+            if (item.reservedBy != null) w.writeString("reservedBy", item.reservedBy);
+            w.writeEndDocument();
+        }
+
+        @Override
+        public User.InventoryItem decode(BsonReader r, DecoderContext ctx) {
+            User.InventoryItem item = new User.InventoryItem();
+            r.readStartDocument();
+            while (r.readBsonType() != BsonType.END_OF_DOCUMENT) {
+                switch (r.readName()) {
+                    case "uid" -> item.uid = readString(r);
+                    case "skin_id" -> item.skin_id = readString(r);
+                    case "acquiredAt" -> item.acquiredAt = (long) readNumber(r, 0);
+                    case "statTrak" -> item.statTrak = readBoolean(r);
+                    case "float" -> item.floatValue = readNumber(r, 0);
+                    case "reservedBy" -> item.reservedBy = readString(r);
+                    default -> r.skipValue();
+                }
+            }
+            r.readEndDocument();
+            return item;
+        }
+
+        @Override
+        public Class<User.InventoryItem> getEncoderClass() {
+            return User.InventoryItem.class;
+        }
+    }
+
+    public static final class UserCodec implements Codec<User> {
+        private final InventoryItemCodec items;
+
+        UserCodec(InventoryItemCodec items) {
+            this.items = items;
+        }
+
+        @Override
+        public void encode(BsonWriter w, User user, EncoderContext ctx) {
+            w.writeStartDocument();
+            writeString(w, "_id", user.id);
+            w.writeInt32("keys", user.keys);
+            w.writeInt32("casesOpened", user.casesOpened);
+            w.writeInt64("inventoryCents", user.inventoryCents);
+            w.writeStartArray("inventory");
+            for (User.InventoryItem item : user.inventory) ctx.encodeWithChildContext(items, w, item);
+            w.writeEndArray();
+            w.writeEndDocument();
+        }
+
+        @Override
+        public User decode(BsonReader r, DecoderContext ctx) {
+            User user = new User();
+            r.readStartDocument();
+            while (r.readBsonType() != BsonType.END_OF_DOCUMENT) {
+                switch (r.readName()) {
+                    case "_id" -> user.id = readId(r);
+                    case "keys" -> user.keys = (int) readNumber(r, 0);
+                    case "casesOpened" -> user.casesOpened = (int) readNumber(r, 0);
+                    case "inventoryCents" -> user.inventoryCents = (long) readNumber(r, 0);
+                    case "inventory" -> {
+                        if (r.getCurrentBsonType() != BsonType.ARRAY) { r.skipValue(); continue; }
+                        r.readStartArray();
+                        while (r.readBsonType() != BsonType.END_OF_DOCUMENT) {
+                            user.inventory.add(items.decode(r, ctx));
+                        }
+                        r.readEndArray();
+                    }
+                    default -> r.skipValue();
+                }
+            }
+            r.readEndDocument();
+            return user;
+        }
+
+        @Override
+        public Class<User> getEncoderClass() {
+            return User.class;
+        }
+    }
+
+    public static final class OfferItemCodec implements Codec<Trade.OfferItem> {
+        @Override
+        public void encode(BsonWriter w, Trade.OfferItem item, EncoderContext ctx) {
+            w.writeStartDocument();
+            if (item.uid != null) w.writeString("uid", item.uid);
+            writeString(w, "skin_id", item.skin_id);
+            w.writeEndDocument();
+        }
+
+        @Override
+        public Trade.OfferItem decode(BsonReader r, DecoderContext ctx) {
+            Trade.OfferItem item = new Trade.OfferItem();
+            r.readStartDocument();
+            while (r.readBsonType() != BsonType.END_OF_DOCUMENT) {
+                switch (r.readName()) {
+                    case "uid" -> item.uid = readString(r);
+                    case "skin_id" -> item.skin_id = readString(r);
+                    default -> r.skipValue();
+                }
+            }
+            r.readEndDocument();
+            return item;
+        }
+
+        @Override
+        public Class<Trade.OfferItem> getEncoderClass() {
+            return Trade.OfferItem.class;
+        }
+    }
+
+    /** Collectible so {@code insertOne} assigns the ObjectId back onto {@link Trade#id}. */
+    public static final class TradeCodec implements CollectibleCodec<Trade> {
+        private final OfferItemCodec offers;
+
+        TradeCodec(OfferItemCodec offers) {
+            this.offers = offers;
+        }
+
+        @Override
+        public void encode(BsonWriter w, Trade t, EncoderContext ctx) {
+            w.writeStartDocument();
+            if (t.id != null) w.writeObjectId("_id", new ObjectId(t.id));
+            writeString(w, "from", t.from);
+            writeString(w, "to", t.to);
+            writeString(w, "status", t.status);
+            writeOffers(w, "offer", t.offer, ctx);
+            writeOffers(w, "request", t.request, ctx);
+            w.writeBoolean("initiatorConfirmed", t.initiatorConfirmed);
+            w.writeBoolean("recipientConfirmed", t.recipientConfirmed);
+            if (t.createdAt != null) w.writeDateTime("createdAt", t.createdAt.getTime());
+            w.writeEndDocument();
+        }
+
+        @Override
+        public Trade decode(BsonReader r, DecoderContext ctx) {
+            Trade t = new Trade();
+            r.readStartDocument();
+            while (r.readBsonType() != BsonType.END_OF_DOCUMENT) {
+                switch (r.readName()) {
+                    case "_id" -> t.id = readId(r);
+                    case "from" -> t.from = readString(r);
+                    case "to" -> t.to = readString(r);
+                    case "status" -> t.status = readString(r);
+                    case "offer" -> readOffers(r, t.offer, ctx);
+                    case "request" -> readOffers(r, t.request, ctx);
+                    case "initiatorConfirmed" -> t.initiatorConfirmed = readBoolean(r);
+                    case "recipientConfirmed" -> t.recipientConfirmed = readBoolean(r);
+                    case "createdAt" -> t.createdAt = readDate(r);
+                    default -> r.skipValue();
+                }
+            }
+            r.readEndDocument();
+            return t;
+        }
+
+        private void writeOffers(BsonWriter w, String name, List<Trade.OfferItem> list, EncoderContext ctx) {
+            w.writeStartArray(name);
+            for (Trade.OfferItem o : list) ctx.encodeWithChildContext(offers, w, o);
+            w.writeEndArray();
+        }
+
+        private void readOffers(BsonReader r, List<Trade.OfferItem> into, DecoderContext ctx) {
+            if (r.getCurrentBsonType() != BsonType.ARRAY) { r.skipValue(); return; }
+            r.readStartArray();
+            while (r.readBsonType() != BsonType.END_OF_DOCUMENT) into.add(offers.decode(r, ctx));
+            r.readEndArray();
+        }
+
+        @Override
+        public Trade generateIdIfAbsentFromDocument(Trade t) {
+            if (t.id == null) t.id = new ObjectId().toHexString();
+            return t;
+        }
+
+        @Override
+        public boolean documentHasId(Trade t) {
+            return t.id != null;
+        }
+
+        @Override
+        public BsonValue getDocumentId(Trade t) {
+            if (t.id == null) throw new IllegalStateException("Trade has no id");
+            return new BsonObjectId(new ObjectId(t.id));
+        }
+
+        @Override
+        public Class<Trade> getEncoderClass() {
+            return Trade.class;
+        }
+    }
+
+    public static final class SkinCodec implements Codec<Skin> {
+        @Override
+        public void encode(BsonWriter w, Skin s, EncoderContext ctx) {
+            w.writeStartDocument();
+            writeString(w, "_id", s.id);
+            writeString(w, "name", s.name);
+            writeString(w, "condition", s.condition);
+            w.writeDouble("price", s.price);
+            writeString(w, "image", s.image);
+            writeString(w, "rarity", s.rarity);
+            w.writeDouble("float", s.floatValue);
+            w.writeDouble("minFloat", s.minFloat);
+            w.writeDouble("maxFloat", s.maxFloat);
+            if (s.uncurated) w.writeBoolean("uncurated", true);
+            w.writeString("hash", s.contentHash());
+            w.writeEndDocument();
+        }
+
+        @Override
+        public Skin decode(BsonReader r, DecoderContext ctx) {
+            Skin s = new Skin();
+            String wear = null;
+            r.readStartDocument();
+            while (r.readBsonType() != BsonType.END_OF_DOCUMENT) {
+                switch (r.readName()) {
+                    case "_id" -> s.id = readId(r);
+                    case "name" -> s.name = readString(r);
+                    case "condition" -> s.condition = readString(r);
+                    case "wear" -> wear = readString(r);
+                    case "price" -> s.price = readNumber(r, 0);
+                    case "image" -> s.image = readString(r);
+                    case "rarity" -> s.rarity = readString(r);
+                    case "float" -> s.floatValue = readNumber(r, 0);
+                    case "minFloat" -> s.minFloat = readNumber(r, 0.0);
+                    case "maxFloat" -> s.maxFloat = readNumber(r, 1.0);
+                    case "uncurated" -> s.uncurated = readBoolean(r);
+                    default -> r.skipValue();
+                }
+            }
+            r.readEndDocument();
+            if (s.condition == null) s.condition = wear;
+            return s;
+        }
+
+        @Override
+        public Class<Skin> getEncoderClass() {
+            return Skin.class;
+        }
+    }
+
+    // --- wire helpers ---
+
+    private static void writeString(BsonWriter w, String name, String value) {
+        if (value == null) w.writeNull(name);
+        else w.writeString(name, value);
+    }
+
+    private static String readString(BsonReader r) {
+        if (r.getCurrentBsonType() == BsonType.STRING) return r.readString();
+        r.skipValue();
+        return null;
+    }
+
+    private static String readId(BsonReader r) {
+        return switch (r.getCurrentBsonType()) {
+            case STRING -> r.readString();
+            case OBJECT_ID -> r.readObjectId().toHexString();
+            case INT32 -> String.valueOf(r.readInt32());
+            case INT64 -> String.valueOf(r.readInt64());
+            default -> { r.skipValue(); yield null; }
+        };
+    }
+
+    private static double readNumber(BsonReader r, double def) {
+        return switch (r.getCurrentBsonType()) {
+            case DOUBLE -> r.readDouble();
+            case INT32 -> r.readInt32();
+            case INT64 -> r.readInt64();
+            case DECIMAL128 -> r.readDecimal128().doubleValue();
+            default -> { r.skipValue(); yield def; }
+        };
+    }
+
+    private static Date readDate(BsonReader r) {
+        if (r.getCurrentBsonType() == BsonType.DATE_TIME) return new Date(r.readDateTime());
+        r.skipValue();
+        return null;
+    }
+
+    private static boolean readBoolean(BsonReader r) {
+        if (r.getCurrentBsonType() == BsonType.BOOLEAN) return r.readBoolean();
+        r.skipValue();
+        return false;
+    }
+}
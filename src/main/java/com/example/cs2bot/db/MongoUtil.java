@@ -1,25 +1,212 @@
 package com.example.cs2bot.db;
 
+import com.mongodb.*;
 import com.mongodb.client.*;
+import com.mongodb.event.*;
+import com.example.cs2bot.models.Skin;
+import com.example.cs2bot.models.Trade;
+import com.example.cs2bot.models.User;
+import io.github.cdimascio.dotenv.Dotenv;
 import org.bson.Document;
-import com.mongodb.MongoClientSettings;
-import com.mongodb.ConnectionString;
 
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Owns the bot's single {@link MongoClient}. Every component gets its collections from
+ * here, so the whole process shares one bounded connection pool with explicit timeouts,
+ * read preference and write concern. Pool activity is counted for {@link #poolStats()}.
+ * The model codecs from {@link ModelCodecs} are registered on the client, so the typed
+ * accessors ({@link #userModels()} etc.) decode straight into the models.
+ * <p>
+ * Tunable through the environment: {@code MONGO_DB} (default {@value #DEFAULT_DB}),
+ * {@code MONGO_POOL_MAX} and {@code MONGO_POOL_MIN}.
+ */
 public class MongoUtil {
+    public static final String DEFAULT_DB = "cs2bot";
+
     private static MongoClient client;
     private static MongoDatabase db;
 
-    public static void init(String uri, String dbName) {
+    private static final AtomicInteger openConnections = new AtomicInteger();
+    private static final AtomicInteger checkedOut = new AtomicInteger();
+    private static final LongAdder checkouts = new LongAdder();
+    private static final LongAdder checkoutFailures = new LongAdder();
+    private static final LongAdder checkoutWaitNanos = new LongAdder();
+    private static final AtomicLong maxCheckoutWaitNanos = new AtomicLong();
+    private static final ThreadLocal<Long> checkoutStartedAt = new ThreadLocal<>();
+
+    public static synchronized void init(String uri, String dbName) {
+        if (client != null) {
+            System.out.println("MongoDB already connected, reusing client for: " + db.getName());
+            return;
+        }
+
+        Dotenv env = Dotenv.configure().ignoreIfMissing().ignoreIfMalformed().load();
+        int maxPool = intEnv(env, "MONGO_POOL_MAX", 50);
+        int minPool = intEnv(env, "MONGO_POOL_MIN", 2);
+
         ConnectionString connString = new ConnectionString(uri);
         MongoClientSettings settings = MongoClientSettings.builder()
                 .applyConnectionString(connString)
+                .applicationName("cs2-java-bot")
+                .codecRegistry(ModelCodecs.registry())
+                .applyToConnectionPoolSettings(pool -> pool
+                        .maxSize(maxPool)
+                        .minSize(minPool)
+                        .maxWaitTime(5, TimeUnit.SECONDS)
+                        .maxConnectionIdleTime(5, TimeUnit.MINUTES)
+                        .addConnectionPoolListener(new PoolMetrics()))
+                .applyToSocketSettings(socket -> socket
+                        .connectTimeout(5, TimeUnit.SECONDS)
+                        .readTimeout(15, TimeUnit.SECONDS))
+                .applyToClusterSettings(cluster -> cluster
+                        .serverSelectionTimeout(5, TimeUnit.SECONDS))
+                .readPreference(ReadPreference.primaryPreferred())
+                .writeConcern(WriteConcern.MAJORITY.withWTimeout(5, TimeUnit.SECONDS))
+                .retryWrites(true)
+                .retryReads(true)
                 .build();
         client = MongoClients.create(settings);
         db = client.getDatabase(dbName);
-        System.out.println("Connected to MongoDB: " + dbName);
+        System.out.println("Connected to MongoDB: " + dbName + " (pool " + minPool + "-" + maxPool + ")");
+    }
+
+    /** Connects to {@code MONGO_DB}, or the bot's default database (the one SeedSkins populates). */
+    public static void connect(String uri) {
+        Dotenv env = Dotenv.configure().ignoreIfMissing().ignoreIfMalformed().load();
+        String dbName = env.get("MONGO_DB");
+        init(uri, dbName != null && !dbName.isBlank() ? dbName : DEFAULT_DB);
+    }
+
+    public static boolean isConnected() {
+        return db != null;
     }
 
     public static MongoDatabase getDB() {
         return db;
     }
+
+    /** For sessions and transactions; everything else should use the collection accessors. */
+    public static MongoClient client() {
+        return client;
+    }
+
+    public static MongoCollection<Document> users() {
+        return db.getCollection("users");
+    }
+
+    public static MongoCollection<Document> skins() {
+        return db.getCollection("skins");
+    }
+
+    public static MongoCollection<Document> cases() {
+        return db.getCollection("cases");
+    }
+
+    public static MongoCollection<Document> prices() {
+        return db.getCollection("prices");
+    }
+
+    public static MongoCollection<Document> priceHistory() {
+        return db.getCollection("price_history");
+    }
+
+    public static MongoCollection<Document> holdings() {
+        return db.getCollection("holdings");
+    }
+
+    /** Drops the inventory writer gave up on, kept for manual recovery. */
+    public static MongoCollection<Document> inventoryDeadLetters() {
+        return db.getCollection("inventory_dead_letters");
+    }
+
+    public static MongoCollection<Document> trades() {
+        return db.getCollection("trades");
+    }
+
+    public static MongoCollection<Document> meta() {
+        return db.getCollection("meta");
+    }
+
+    public static MongoCollection<User> userModels() {
+        return users().withDocumentClass(User.class);
+    }
+
+    public static MongoCollection<Skin> skinModels() {
+        return skins().withDocumentClass(Skin.class);
+    }
+
+    public static MongoCollection<Trade> tradeModels() {
+        return trades().withDocumentClass(Trade.class);
+    }
+
+    public static String poolStats() {
+        long n = checkouts.sum();
+        return String.format("open=%d in-use=%d checkouts=%d failed=%d wait avg=%.2fms max=%.2fms",
+                openConnections.get(), checkedOut.get(), n, checkoutFailures.sum(),
+                n == 0 ? 0.0 : checkoutWaitNanos.sum() / 1e6 / n, maxCheckoutWaitNanos.get() / 1e6);
+    }
+
+    public static synchronized void close() {
+        if (client != null) {
+            client.close();
+            client = null;
+            db = null;
+        }
+    }
+
+    private static int intEnv(Dotenv env, String key, int def) {
+        try {
+            String v = env.get(key);
+            return v == null || v.isBlank() ? def : Integer.parseInt(v.trim());
+        } catch (NumberFormatException e) {
+            System.err.println("⚠️ Ignoring invalid " + key + ", using " + def);
+            return def;
+        }
+    }
+
+    /** The sync driver starts and finishes a checkout on the same thread, so a ThreadLocal times it. */
+    private static final class PoolMetrics implements ConnectionPoolListener {
+        @Override
+        public void connectionCreated(ConnectionCreatedEvent event) {
+            openConnections.incrementAndGet();
+        }
+
+        @Override
+        public void connectionClosed(ConnectionClosedEvent event) {
+            openConnections.decrementAndGet();
+        }
+
+        @Override
+        public void connectionCheckOutStarted(ConnectionCheckOutStartedEvent event) {
+            checkoutStartedAt.set(System.nanoTime());
+        }
+
+        @Override
+        public void connectionCheckedOut(ConnectionCheckedOutEvent event) {
+            checkedOut.incrementAndGet();
+            checkouts.increment();
+            Long started = checkoutStartedAt.get();
+            if (started != null) {
+                long wait = System.nanoTime() - started;
+                checkoutWaitNanos.add(wait);
+                maxCheckoutWaitNanos.accumulateAndGet(wait, Math::max);
+                checkoutStartedAt.remove();
+            }
+        }
+
+        @Override
+        public void connectionCheckOutFailed(ConnectionCheckOutFailedEvent event) {
+            checkoutFailures.increment();
+            checkoutStartedAt.remove();
+        }
+
+        @Override
+        public void connectionCheckedIn(ConnectionCheckedInEvent event) {
+            checkedOut.decrementAndGet();
+        }
+    }
 }
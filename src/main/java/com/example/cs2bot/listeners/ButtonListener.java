@@ -1,19 +1,21 @@
 package com.example.cs2bot.listeners;
 
-import com.example.cs2bot.db.MongoUtil;
-import com.mongodb.client.MongoCollection;
+import com.example.cs2bot.cases.CaseRegistry;
+import com.example.cs2bot.commands.InventoryCommand;
+import com.example.cs2bot.commands.TradeCommand;
+import com.example.cs2bot.cases.Drop;
+import com.example.cs2bot.cases.SkinPool;
+import com.example.cs2bot.db.InventoryWriter;
+import com.example.cs2bot.models.User;
 import net.dv8tion.jda.api.EmbedBuilder;
 import net.dv8tion.jda.api.events.interaction.component.ButtonInteractionEvent;
 import net.dv8tion.jda.api.hooks.ListenerAdapter;
-import org.bson.Document;
+import org.bson.types.ObjectId;
 
 import java.awt.*;
-import java.util.Random;
 
 public class ButtonListener extends ListenerAdapter {
 
-    private final Random random = new Random();
-
     @Override
     public void onButtonInteraction(ButtonInteractionEvent event) {
         String id = event.getComponentId();
@@ -22,74 +24,81 @@ public class ButtonListener extends ListenerAdapter {
             case "get_key" -> event.reply("🗝️ You received a key! Use it to open a case.")
                     .setEphemeral(true).queue();
 
-            case "open_case", "open_prisma2", "open_revolution", "open_dreams" -> {
-                String caseName = switch (id) {
-                    case "open_prisma2" -> "🎨 Prisma 2 Case";
-                    case "open_revolution" -> "⚡ Revolution Case";
-                    case "open_dreams" -> "💤 Dreams & Nightmares Case";
-                    default -> "Mystery Case";
-                };
-
-                MongoCollection<Document> skins = MongoUtil.getDB().getCollection("skins");
-                long count = skins.countDocuments();
+            case "inventory" ->
+                    event.reply("📦 Opening inventory... (coming soon!)").setEphemeral(true).queue();
 
-                if (count == 0) {
-                    event.reply("⚠️ No skins available in the database!")
+            case "trade" ->
+                    event.reply("💱 Use `/trade user:@someone offer:1,3 request:2` with the `#` numbers from `/inventory`.")
                             .setEphemeral(true).queue();
+
+            default -> {
+                if (id.startsWith(InventoryCommand.BUTTON_PREFIX)) {
+                    InventoryCommand.handlePage(event);
                     return;
                 }
-
-                int randomIndex = random.nextInt((int) count);
-                Document skin = skins.find().skip(randomIndex).first();
-                if (skin == null) {
-                    event.reply("⚠️ Error fetching skin.")
-                            .setEphemeral(true).queue();
+                if (id.startsWith(TradeCommand.BUTTON_PREFIX)) {
+                    TradeCommand.handleButton(event);
                     return;
                 }
-
-                String name = skin.getString("name");
-                String wear = skin.getString("wear");
-                double price = skin.getDouble("price");
-                double wearFloat = skin.containsKey("float") ? skin.getDouble("float") : 0.0;
-                String rarity = skin.getString("rarity");
-                String image = skin.getString("image");
-
-                if (name != null) name = name.replace("?", "★").trim();
-                if (rarity == null) rarity = "Unknown";
-
-                Color embedColor = switch (rarity) {
-                    case "Consumer Grade" -> new Color(211, 211, 211);
-                    case "Industrial Grade" -> new Color(94, 152, 217);
-                    case "Mil-Spec" -> new Color(75, 105, 255);
-                    case "Restricted" -> new Color(136, 71, 255);
-                    case "Classified" -> new Color(211, 44, 230);
-                    case "Covert" -> new Color(235, 75, 75);
-                    case "Extraordinary" -> new Color(255, 215, 0);
-                    default -> Color.WHITE;
-                };
-
-                EmbedBuilder embed = new EmbedBuilder()
-                        .setTitle("🎁 You opened a " + caseName + "!")
-                        .setDescription("You unboxed a **" + rarity + "** skin:\n\n" +
-                                "🪙 **" + name + "** (" + wear + ")\n" +
-                                "💶 Price: €" + String.format("%.2f", price) + "\n" +
-                                "🧮 Float: " + String.format("%.4f", wearFloat))
-                        .setColor(embedColor);
-
-                if (image != null && !image.isBlank())
-                    embed.setThumbnail(image);
-
-                event.replyEmbeds(embed.build()).queue();
+                if (id.startsWith("open_")) {
+                    handleCaseOpen(event, id.substring("open_".length()));
+                    return;
+                }
+                event.reply("⚠️ Unknown button action: `" + id + "`")
+                        .setEphemeral(true).queue();
             }
+        }
+    }
 
-            case "inventory" ->
-                    event.reply("📦 Opening inventory... (coming soon!)").setEphemeral(true).queue();
+    private void handleCaseOpen(ButtonInteractionEvent event, String caseId) {
+        String caseName = CaseRegistry.displayName(caseId);
 
-            case "trade" ->
-                    event.reply("💱 Starting trade... (coming soon!)").setEphemeral(true).queue();
+        Drop drop = CaseRegistry.open(caseId);
+        if (drop == null) {
+            event.reply("⚠️ No skins available in the database!")
+                    .setEphemeral(true).queue();
+            return;
+        }
 
-            default -> event.reply("⚠️ Unknown button action: `" + id + "`")
+        SkinPool.Entry skin = drop.skin;
+        boolean saved = InventoryWriter.enqueue(event.getUser().getId(), new User.InventoryItem(
+                new ObjectId().toHexString(), skin.id, System.currentTimeMillis(), drop.statTrak, drop.floatValue));
+        if (!saved) {
+            // The writer stopped accepting drops for shutdown; don't show an item that won't be kept
+            event.reply("🔄 The bot is restarting, please try again in a moment.")
                     .setEphemeral(true).queue();
+            return;
         }
+
+        String name = drop.displayName();
+        String wear = skin.wear;
+        double price = skin.price;
+        double wearFloat = drop.floatValue;
+        String rarity = skin.rarity;
+        String image = skin.image;
+
+        Color embedColor = switch (rarity) {
+            case "Consumer Grade" -> new Color(211, 211, 211);
+            case "Industrial Grade" -> new Color(94, 152, 217);
+            case "Mil-Spec" -> new Color(75, 105, 255);
+            case "Restricted" -> new Color(136, 71, 255);
+            case "Classified" -> new Color(211, 44, 230);
+            case "Covert" -> new Color(235, 75, 75);
+            case "Extraordinary" -> new Color(255, 215, 0);
+            default -> Color.WHITE;
+        };
+
+        EmbedBuilder embed = new EmbedBuilder()
+                .setTitle("🎁 You opened a " + caseName + "!")
+                .setDescription("You unboxed a **" + rarity + "** skin:\n\n" +
+                        "🪙 **" + name + "** (" + wear + ")\n" +
+                        "💶 Price: €" + String.format("%.2f", price) + "\n" +
+                        "🧮 Float: " + String.format("%.4f", wearFloat))
+                .setColor(embedColor);
+
+        if (image != null && !image.isBlank())
+            embed.setThumbnail(image);
+
+        event.replyEmbeds(embed.build()).queue();
     }
 }
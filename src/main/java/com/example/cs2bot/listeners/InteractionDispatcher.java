@@ -0,0 +1,165 @@
+package com.example.cs2bot.listeners;
+
+import net.dv8tion.jda.api.interactions.InteractionHook;
+import net.dv8tion.jda.api.interactions.callbacks.IMessageEditCallback;
+import net.dv8tion.jda.api.interactions.callbacks.IReplyCallback;
+import net.dv8tion.jda.api.utils.messages.MessageEditData;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs slow interaction handlers off the JDA event thread.
+ * The interaction is acknowledged right away (deferReply / deferEdit) so Discord's
+ * 3 s window is never missed. The handler then runs on a bounded worker pool and
+ * its result is sent with {@code getHook().editOriginal}. Each handler has its own
+ * timeout, and queue wait time is tracked per command.
+ * <p>
+ * A handler that should answer only the invoking user (validation errors, empty results)
+ * throws {@link Ephemeral}: the deferred reply is deleted and the text is sent as an
+ * ephemeral follow-up, since a deferred reply can't change its visibility afterwards.
+ */
+public final class InteractionDispatcher {
+
+    public static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(10);
+
+    private static final int WORKERS = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+    private static final int QUEUE_CAPACITY = 500;
+
+    @FunctionalInterface
+    public interface Handler {
+        MessageEditData handle() throws Exception;
+    }
+
+    /** Thrown from a {@link Handler} to answer with an ephemeral message instead of the public one. */
+    public static final class Ephemeral extends RuntimeException {
+        public Ephemeral(String content) {
+            super(content, null, false, false);
+        }
+    }
+
+    /** Counters for one command name. */
+    public static final class Stats {
+        final LongAdder completed = new LongAdder();
+        final LongAdder failed = new LongAdder();
+        final LongAdder timedOut = new LongAdder();
+        final LongAdder rejected = new LongAdder();
+        final LongAdder waits = new LongAdder();
+        final LongAdder waitNanos = new LongAdder();
+        final AtomicLong maxWaitNanos = new AtomicLong();
+
+        void recordWait(long nanos) {
+            waits.increment();
+            waitNanos.add(nanos);
+            maxWaitNanos.accumulateAndGet(nanos, Math::max);
+        }
+
+        @Override
+        public String toString() {
+            long n = waits.sum();
+            double avgMs = n == 0 ? 0 : waitNanos.sum() / 1e6 / n;
+            return String.format("ok=%d failed=%d timeout=%d rejected=%d wait avg=%.1fms max=%.1fms",
+                    completed.sum(), failed.sum(), timedOut.sum(), rejected.sum(),
+                    avgMs, maxWaitNanos.get() / 1e6);
+        }
+    }
+
+    private static final Map<String, Stats> stats = new ConcurrentHashMap<>();
+
+    private static final ThreadPoolExecutor workers = new ThreadPoolExecutor(
+            WORKERS, WORKERS, 60, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(QUEUE_CAPACITY),
+            daemonFactory("interaction-worker"),
+            new ThreadPoolExecutor.AbortPolicy());
+
+    private static final ScheduledExecutorService timeouts =
+            Executors.newSingleThreadScheduledExecutor(daemonFactory("interaction-timeout"));
+
+    private InteractionDispatcher() {}
+
+    /** Acknowledges with a deferred reply, then fills it in with the handler's result. */
+    public static void reply(IReplyCallback event, String command, boolean ephemeral, Duration timeout, Handler handler) {
+        event.deferReply(ephemeral).queue();
+        submit(event.getHook(), command, timeout, handler, !ephemeral);
+    }
+
+    /** Acknowledges a component click with a deferred edit, then edits the message in place. */
+    public static void edit(IMessageEditCallback event, String command, Duration timeout, Handler handler) {
+        event.deferEdit().queue();
+        submit(event.getHook(), command, timeout, handler, false);
+    }
+
+    /** Queue depth and per-command counters, for logs and admin commands. */
+    public static String metrics() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("queue=%d active=%d/%d%n", workers.getQueue().size(), workers.getActiveCount(), WORKERS));
+        stats.forEach((name, s) -> sb.append(name).append(": ").append(s).append('\n'));
+        return sb.toString();
+    }
+
+    /** {@code deleteOriginal}: whether an {@link Ephemeral} answer replaces a public deferred reply. */
+    private static void submit(InteractionHook hook, String command, Duration timeout, Handler handler,
+                               boolean deleteOriginal) {
+        Stats s = stats.computeIfAbsent(command, k -> new Stats());
+        AtomicBoolean answered = new AtomicBoolean();
+        // Whichever of the task and the timeout comes first records the queue wait, exactly once
+        AtomicBoolean dequeued = new AtomicBoolean();
+        long queuedAt = System.nanoTime();
+
+        Future<?> future;
+        try {
+            future = workers.submit(() -> {
+                if (dequeued.compareAndSet(false, true)) s.recordWait(System.nanoTime() - queuedAt);
+                try {
+                    MessageEditData result = handler.handle();
+                    if (answered.compareAndSet(false, true)) {
+                        hook.editOriginal(result).queue();
+                        s.completed.increment();
+                    }
+                } catch (Ephemeral e) {
+                    if (answered.compareAndSet(false, true)) {
+                        // A button's original is the message being clicked, so only a reply's is removed
+                        if (deleteOriginal) hook.deleteOriginal().queue();
+                        hook.sendMessage(e.getMessage()).setEphemeral(true).queue();
+                        s.completed.increment();
+                    }
+                } catch (Exception e) {
+                    if (answered.compareAndSet(false, true)) {
+                        s.failed.increment();
+                        System.err.printf("[Dispatcher] ❌ %s failed: %s%n", command, e.getMessage());
+                        hook.editOriginal("⚠️ Something went wrong, please try again.").queue();
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            s.rejected.increment();
+            hook.editOriginal("⏳ The bot is busy right now, please try again in a moment.").queue();
+            return;
+        }
+
+        timeouts.schedule(() -> {
+            if (answered.compareAndSet(false, true)) {
+                // Never started: it waited the whole timeout in the queue
+                if (dequeued.compareAndSet(false, true)) s.recordWait(System.nanoTime() - queuedAt);
+                future.cancel(true);
+                s.timedOut.increment();
+                System.err.printf("[Dispatcher] ⏱️ %s timed out after %dms%n", command, timeout.toMillis());
+                hook.editOriginal("⏱️ That took too long, please try again.").queue();
+            }
+        }, timeout.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private static ThreadFactory daemonFactory(String name) {
+        AtomicInteger n = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, name + "-" + n.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+}
@@ -1,23 +1,67 @@
 package com.example.cs2bot.listeners;
 
-import com.example.cs2bot.db.MongoUtil;
-import com.example.cs2bot.models.User;
-import com.example.cs2bot.utils.PriceUpdater;
-import com.mongodb.client.MongoCollection;
-import com.mongodb.client.model.Filters;
+import com.example.cs2bot.cases.CaseRegistry;
+import com.example.cs2bot.commands.InventoryCommand;
+import com.example.cs2bot.commands.LeaderboardCommand;
+import com.example.cs2bot.commands.TradeCommand;
+import com.example.cs2bot.utils.PriceRefreshService;
+import net.dv8tion.jda.api.JDA;
 import net.dv8tion.jda.api.Permission;
+import net.dv8tion.jda.api.entities.Guild;
 import net.dv8tion.jda.api.events.interaction.command.SlashCommandInteractionEvent;
 import net.dv8tion.jda.api.hooks.ListenerAdapter;
-import org.bson.Document;
+import net.dv8tion.jda.api.interactions.commands.DefaultMemberPermissions;
+import net.dv8tion.jda.api.interactions.commands.OptionType;
+import net.dv8tion.jda.api.interactions.commands.build.CommandData;
+import net.dv8tion.jda.api.interactions.commands.build.Commands;
+import net.dv8tion.jda.api.interactions.commands.build.SubcommandData;
+import net.dv8tion.jda.api.interactions.components.ActionRow;
+import net.dv8tion.jda.api.interactions.components.buttons.Button;
+
+import java.util.ArrayList;
+import java.util.List;
 
 public class SlashCommandListener extends ListenerAdapter {
 
+    /** The slash commands this listener handles, as registered with Discord. */
+    public static List<CommandData> commands() {
+        return List.of(
+                Commands.slash("case", "Open a case"),
+                Commands.slash("inventory", "Show an inventory")
+                        .addOption(OptionType.USER, "user", "Whose inventory (defaults to yours)"),
+                Commands.slash("trade", "Offer a trade using the # numbers from /inventory")
+                        .addOption(OptionType.USER, "user", "Who to trade with", true)
+                        .addOption(OptionType.STRING, "offer", "Your items, e.g. 1,3")
+                        .addOption(OptionType.STRING, "request", "Their items, e.g. 2"),
+                Commands.slash("leaderboard", "The most valuable inventories"),
+                // A command with subcommands can't be invoked bare, so triggering is its own subcommand
+                Commands.slash("refreshprices", "Price refresh")
+                        .addSubcommands(
+                                new SubcommandData("run", "Start a price refresh, or join the running one"),
+                                new SubcommandData("status", "Progress, ETA and upstream health"))
+                        .setDefaultPermissions(DefaultMemberPermissions.enabledFor(Permission.MANAGE_SERVER)));
+    }
+
+    /** Registers {@link #commands()} on {@code guildId} (shows up at once) or globally when it is blank. */
+    public static void register(JDA jda, String guildId) {
+        if (guildId != null && !guildId.isBlank()) {
+            Guild guild = jda.getGuildById(guildId);
+            if (guild != null) {
+                guild.updateCommands().addCommands(commands()).queue();
+                return;
+            }
+            System.err.println("⚠️ GUILD_ID " + guildId + " not found, registering commands globally.");
+        }
+        jda.updateCommands().addCommands(commands()).queue();
+    }
+
     @Override
     public void onSlashCommandInteraction(SlashCommandInteractionEvent event) {
         switch (event.getName()) {
             case "case" -> handleCaseCommand(event);
-            case "inventory" -> handleInventoryCommand(event);
-            case "trade" -> handleTradeCommand(event);
+            case "inventory" -> InventoryCommand.handle(event);
+            case "trade" -> TradeCommand.handle(event);
+            case "leaderboard" -> LeaderboardCommand.handle(event);
             case "refreshprices" -> handleRefreshPrices(event);
         }
     }
@@ -29,30 +73,18 @@ public class SlashCommandListener extends ListenerAdapter {
                 .setColor(0x00BFFF)
                 .build();
 
-        var buttons = net.dv8tion.jda.api.interactions.components.ActionRow.of(
-                net.dv8tion.jda.api.interactions.components.buttons.Button.primary("open_prisma2", "🎨 Prisma 2 Case"),
-                net.dv8tion.jda.api.interactions.components.buttons.Button.primary("open_revolution", "⚡ Revolution Case"),
-                net.dv8tion.jda.api.interactions.components.buttons.Button.primary("open_dreams", "💤 Dreams & Nightmares")
-        );
+        // Discord allows 5 buttons per row and 5 rows per message
+        List<Button> buttons = new ArrayList<>();
+        CaseRegistry.menu().forEach((caseId, name) -> buttons.add(Button.primary("open_" + caseId, name)));
 
-        event.replyEmbeds(embed)
-                .addActionRow(buttons.getButtons())
-                .queue();
-    }
-
-    private void handleInventoryCommand(SlashCommandInteractionEvent event) {
-        MongoCollection<Document> users = MongoUtil.getDB().getCollection("users");
-        Document userDoc = users.find(Filters.eq("_id", event.getUser().getId())).first();
-        if (userDoc == null) {
-            event.reply("You have no items in your inventory.").setEphemeral(true).queue();
-            return;
+        List<ActionRow> rows = new ArrayList<>();
+        for (int i = 0; i < buttons.size() && rows.size() < 5; i += 5) {
+            rows.add(ActionRow.of(buttons.subList(i, Math.min(i + 5, buttons.size()))));
         }
-        User user = new User(userDoc);
-        event.reply("You own " + user.inventory.size() + " item(s).").setEphemeral(true).queue();
-    }
 
-    private void handleTradeCommand(SlashCommandInteractionEvent event) {
-        event.reply("Trade system coming soon!").setEphemeral(true).queue();
+        event.replyEmbeds(embed)
+                .addComponents(rows)
+                .queue();
     }
 
     private void handleRefreshPrices(SlashCommandInteractionEvent event) {
@@ -61,11 +93,16 @@ public class SlashCommandListener extends ListenerAdapter {
             return;
         }
 
-        int numThreads = 10;
-        for (int i = 0; i < numThreads; i++) {
-            new Thread(new PriceUpdater(350, numThreads, i)).start();
+        switch (event.getSubcommandName() == null ? "" : event.getSubcommandName()) {
+            case "status" -> event.reply(PriceRefreshService.status()).setEphemeral(true).queue();
+            case "run" -> {
+                boolean joined = PriceRefreshService.isRunning();
+                PriceRefreshService.trigger();
+                event.reply(joined
+                        ? "⏳ A price refresh is already running. Use `/refreshprices status` to follow it."
+                        : "⏳ Price refresh started. Use `/refreshprices status` to follow it.").setEphemeral(true).queue();
+            }
+            default -> event.reply("Usage: `/refreshprices run` or `/refreshprices status`.").setEphemeral(true).queue();
         }
-
-        event.reply("⏳ Price refresh started. Check console logs for progress.").setEphemeral(true).queue();
     }
 }
\ No newline at end of file
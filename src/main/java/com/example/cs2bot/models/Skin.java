@@ -5,20 +5,30 @@ import org.bson.Document;
 public class Skin {
     public String id;
     public String name;
-    public String condition;
+    public String condition;        // stored as "condition", older seeds use "wear"
     public double price;
     public String image;
     public String rarity;
+    public double floatValue;       // stored as "float"
+    public double minFloat = 0.0;
+    public double maxFloat = 1.0;
+    /** Added by the feed sync with a guessed rarity; kept out of the default drop pool until curated. */
+    public boolean uncurated;
 
     public Skin() {}
 
     public Skin(Document d) {
-        this.id = d.getString("_id");
+        Object rawId = d.get("_id");
+        this.id = rawId == null ? null : rawId.toString();
         this.name = d.getString("name");
-        this.condition = d.getString("condition");
-        this.price = d.getDouble("price");
+        this.condition = d.getString("condition") != null ? d.getString("condition") : d.getString("wear");
+        this.price = number(d.get("price"), 0.0);
         this.image = d.getString("image");
         this.rarity = d.getString("rarity");
+        this.floatValue = number(d.get("float"), 0.0);
+        this.minFloat = number(d.get("minFloat"), 0.0);
+        this.maxFloat = number(d.get("maxFloat"), 1.0);
+        this.uncurated = Boolean.TRUE.equals(d.getBoolean("uncurated"));
     }
 
     public Document toDocument() {
@@ -29,6 +39,31 @@ public class Skin {
         d.append("price", price);
         d.append("image", image);
         d.append("rarity", rarity);
+        d.append("float", floatValue);
+        d.append("minFloat", minFloat);
+        d.append("maxFloat", maxFloat);
+        if (uncurated) d.append("uncurated", true);
+        d.append("hash", contentHash());
         return d;
     }
+
+    /**
+     * Stable fingerprint of every stored field (64-bit FNV-1a, hex). Written alongside the skin
+     * so importers can skip documents that haven't changed.
+     */
+    public String contentHash() {
+        String canonical = id + '\u0001' + name + '\u0001' + condition + '\u0001' + price + '\u0001'
+                + image + '\u0001' + rarity + '\u0001' + floatValue + '\u0001' + minFloat + '\u0001' + maxFloat
+                + (uncurated ? "\u0001uncurated" : ""); // only when set, so curated skins keep their hashes
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < canonical.length(); i++) {
+            h ^= canonical.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return Long.toHexString(h);
+    }
+
+    private static double number(Object o, double def) {
+        return o instanceof Number n ? n.doubleValue() : def;
+    }
 }
@@ -1,29 +1,61 @@
 package com.example.cs2bot.models;
 
 import org.bson.Document;
+import org.bson.types.ObjectId;
+
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
 
 public class Trade {
+    public static final String PENDING = "pending";
+    public static final String COMPLETED = "completed";
+    public static final String DECLINED = "declined";
+    public static final String CANCELLED = "cancelled";
+    public static final String FAILED = "failed";
+    public static final String EXPIRED = "expired";
+
     public String id;
     public String from;
     public String to;
     public List<OfferItem> offer = new ArrayList<>();
     public List<OfferItem> request = new ArrayList<>();
-    public String status = "pending";
+    public String status = PENDING;
     public boolean initiatorConfirmed = false;
     public boolean recipientConfirmed = false;
+    public Date createdAt;
 
     public static class OfferItem {
-        public String skin_id;
+        public String uid;          // InventoryItem.uid being moved
+        public String skin_id;      // for display only
         public OfferItem() {}
         public OfferItem(String s){ this.skin_id = s; }
-        public Document toDocument(){ return new Document("skin_id", skin_id); }
-        public static OfferItem fromDocument(Document d){ OfferItem o = new OfferItem(); o.skin_id = d.getString("skin_id"); return o;}
+        public OfferItem(String uid, String skin_id){ this.uid = uid; this.skin_id = skin_id; }
+        public Document toDocument(){
+            Document d = new Document();
+            if (uid != null) d.append("uid", uid);
+            return d.append("skin_id", skin_id);
+        }
+        public static OfferItem fromDocument(Document d){ return new OfferItem(d.getString("uid"), d.getString("skin_id")); }
+    }
+
+    public List<String> offerUids() {
+        return uids(offer);
+    }
+
+    public List<String> requestUids() {
+        return uids(request);
+    }
+
+    private static List<String> uids(List<OfferItem> items) {
+        List<String> out = new ArrayList<>(items.size());
+        for (OfferItem o : items) out.add(o.uid);
+        return out;
     }
 
     public Document toDocument() {
         Document d = new Document();
+        if (id != null) d.append("_id", new ObjectId(id));
         d.append("from", from);
         d.append("to", to);
         d.append("status", status);
@@ -35,6 +67,7 @@ public class Trade {
         d.append("request", req);
         d.append("initiatorConfirmed", initiatorConfirmed);
         d.append("recipientConfirmed", recipientConfirmed);
+        d.append("createdAt", createdAt);
         return d;
     }
 
@@ -46,6 +79,7 @@ public class Trade {
         t.status = d.getString("status");
         t.initiatorConfirmed = d.getBoolean("initiatorConfirmed", false);
         t.recipientConfirmed = d.getBoolean("recipientConfirmed", false);
+        t.createdAt = d.getDate("createdAt");
         List<Document> off = (List<Document>) d.get("offer");
         if (off != null) for (Document o : off) t.offer.add(OfferItem.fromDocument(o));
         List<Document> req = (List<Document>) d.get("request");
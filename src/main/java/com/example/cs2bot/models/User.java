@@ -7,6 +7,9 @@ import java.util.List;
 public class User {
     public String id;
     public int keys;
+    public int casesOpened;
+    /** Inventory value in euro cents, maintained by the valuation engine. */
+    public long inventoryCents;
     public List<InventoryItem> inventory = new ArrayList<>();
 
     public User() {
@@ -24,6 +27,8 @@ public class User {
     public User(Document doc) {
         this.id = doc.getString("_id");
         this.keys = doc.getInteger("keys", 0);
+        this.casesOpened = doc.getInteger("casesOpened", 0);
+        this.inventoryCents = doc.get("inventoryCents") instanceof Number n ? n.longValue() : 0L;
         this.inventory = new ArrayList<>();
         List<Document> items = (List<Document>) doc.get("inventory", List.class);
         if (items != null) {
@@ -40,14 +45,19 @@ public class User {
         }
         return new Document("_id", id)
                 .append("keys", keys)
+                .append("casesOpened", casesOpened)
+                .append("inventoryCents", inventoryCents)
                 .append("inventory", invDocs);
     }
 
     // nested class for inventory items
     public static class InventoryItem {
+        public String uid;          // unique per owned item, survives trades
         public String skin_id;
         public long acquiredAt;
         public boolean statTrak;
+        public double floatValue;
+        public String reservedBy;   // id of the pending trade holding this item, if any
 
         public InventoryItem() {}
         public InventoryItem(String skin_id, long acquiredAt, boolean statTrak) {
@@ -56,18 +66,35 @@ public class User {
             this.statTrak = statTrak;
         }
 
+        public InventoryItem(String uid, String skin_id, long acquiredAt, boolean statTrak, double floatValue) {
+            this(skin_id, acquiredAt, statTrak);
+            this.uid = uid;
+            this.floatValue = floatValue;
+        }
+
         public Document toDocument() {
-            return new Document("skin_id", skin_id)
+            Document d = new Document();
+            if (uid != null) d.append("uid", uid);
+            d.append("skin_id", skin_id)
                     .append("acquiredAt", acquiredAt)
-                    .append("statTrak", statTrak);
+                    .append("statTrak", statTrak)
+                    .append("float", floatValue);
+            if (reservedBy != null) d.append("reservedBy", reservedBy);
+            return d;
         }
 
         public static InventoryItem fromDocument(Document d) {
-            return new InventoryItem(
+            Object fl = d.get("float");
+            Object at = d.get("acquiredAt");
+            InventoryItem item = new InventoryItem(
+                    d.getString("uid"),
                     d.getString("skin_id"),
-                    d.getLong("acquiredAt"),
-                    d.getBoolean("statTrak", false)
+                    at instanceof Number n ? n.longValue() : 0L,
+                    d.getBoolean("statTrak", false),
+                    fl instanceof Number f ? f.doubleValue() : 0.0
             );
+            item.reservedBy = d.getString("reservedBy");
+            return item;
         }
     }
 }
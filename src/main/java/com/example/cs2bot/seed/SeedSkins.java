@@ -1,31 +1,261 @@
 package com.example.cs2bot.seed;
 
+import com.example.cs2bot.cases.SkinPool;
 import com.example.cs2bot.db.MongoUtil;
+import com.example.cs2bot.models.Skin;
 import com.google.gson.*;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.mongodb.MongoBulkWriteException;
 import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.*;
 import org.bson.Document;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.List;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * Imports {@code seed/skins.json} (or the path given as the first argument) into {@code skins}.
+ * <p>
+ * The file is streamed record by record, so memory stays flat however large the catalogue is.
+ * Valid records go out as unordered {@code bulkWrite} batches on a few parallel workers.
+ * <ul>
+ *   <li>{@code --diff} only writes skins whose {@link Skin#contentHash()} differs from the stored one</li>
+ *   <li>{@code --dry-run} validates and diffs without writing anything</li>
+ * </ul>
+ */
 public class SeedSkins {
+
+    private static final int BATCH = 500;
+    private static final int WORKERS = 4;
+    private static final long PROGRESS_EVERY_MS = 2000;
+    private static final int MAX_LOGGED_INVALID = 20;
+
+    private static final AtomicInteger written = new AtomicInteger();
+    private static final AtomicInteger failed = new AtomicInteger();
+
     public static void main(String[] args) throws Exception {
         String mongoUri = System.getenv("MONGO_URI");
         if (mongoUri == null) {
             System.err.println("Set MONGO_URI env variable.");
             System.exit(1);
         }
-        MongoUtil.init(mongoUri, "cs2bot");
-        MongoCollection<Document> skins = MongoUtil.getDB().getCollection("skins");
-        String json = Files.readString(Path.of("seed/skins.json"));
-        JsonArray arr = JsonParser.parseString(json).getAsJsonArray();
-        for (JsonElement e : arr) {
-            Document d = Document.parse(e.toString());
-            skins.replaceOne(new Document("_id", d.getString("_id")), d, new com.mongodb.client.model.ReplaceOptions().upsert(true));
-            System.out.println("Upserted skin: " + d.getString("_id"));
+
+        boolean dryRun = false, diff = false;
+        Path skinsFile = Path.of("seed/skins.json");
+        for (String arg : args) {
+            switch (arg) {
+                case "--dry-run" -> dryRun = true;
+                case "--diff" -> diff = true;
+                default -> skinsFile = Path.of(arg);
+            }
+        }
+
+        MongoUtil.connect(mongoUri);
+        importSkins(skinsFile, dryRun, diff);
+
+        // Optional case definitions, see CaseRegistry for the document layout
+        Path casesFile = Path.of("seed/cases.json");
+        if (Files.exists(casesFile) && !dryRun) {
+            MongoCollection<Document> cases = MongoUtil.cases();
+            JsonArray caseArr = JsonParser.parseString(Files.readString(casesFile)).getAsJsonArray();
+            for (JsonElement e : caseArr) {
+                Document d = Document.parse(e.toString());
+                cases.replaceOne(new Document("_id", d.getString("_id")), d, new com.mongodb.client.model.ReplaceOptions().upsert(true));
+                System.out.println("Upserted case: " + d.getString("_id"));
+            }
+            SkinPool.markCasesChanged();
         }
         System.out.println("Seed complete.");
         System.exit(0);
     }
+
+    private static void importSkins(Path file, boolean dryRun, boolean diff) throws IOException, InterruptedException {
+        long started = System.currentTimeMillis();
+        // Stored hashes are only needed to skip unchanged skins or to report what would change
+        Map<String, String> stored = diff || dryRun ? storedHashes() : Map.of();
+
+        ExecutorService workers = Executors.newFixedThreadPool(WORKERS, r -> {
+            Thread t = new Thread(r, "seed-writer");
+            t.setDaemon(true);
+            return t;
+        });
+        Semaphore inFlight = new Semaphore(WORKERS * 2);
+        List<Future<?>> pending = new ArrayList<>();
+
+        int processed = 0, invalid = 0, inserts = 0, updates = 0, unchanged = 0;
+        Set<String> seen = new HashSet<>();
+        List<WriteModel<Skin>> batch = new ArrayList<>(BATCH);
+        long lastReport = started;
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+             Reader in = Channels.newReader(channel, StandardCharsets.UTF_8);
+             JsonReader reader = new JsonReader(in)) {
+            reader.beginArray();
+            while (reader.hasNext()) {
+                processed++;
+                Skin skin;
+                String problem;
+                try {
+                    List<String> typeErrors = new ArrayList<>(1);
+                    skin = readSkin(reader, typeErrors);
+                    problem = !typeErrors.isEmpty() ? describe(skin, typeErrors.get(0)) : validate(skin, seen);
+                } catch (IOException e) {
+                    // Broken JSON syntax: there is no next record to resync on, so stop reading here
+                    invalid++;
+                    System.err.printf("⚠️ Record %d unreadable, stopping the import: %s%n", processed, e.getMessage());
+                    break;
+                }
+                if (problem != null) {
+                    if (++invalid <= MAX_LOGGED_INVALID) {
+                        System.err.printf("⚠️ Record %d skipped: %s%n", processed, problem);
+                    }
+                    continue;
+                }
+
+                String hash = stored.get(skin.id);
+                if (hash == null) {
+                    inserts++;
+                } else if (hash.equals(skin.contentHash())) {
+                    unchanged++;
+                    if (diff) continue;
+                } else {
+                    updates++;
+                }
+
+                if (dryRun) continue;
+                batch.add(new ReplaceOneModel<>(Filters.eq("_id", skin.id), skin, new ReplaceOptions().upsert(true)));
+                if (batch.size() >= BATCH) {
+                    pending.add(submit(workers, inFlight, batch));
+                    batch = new ArrayList<>(BATCH);
+                }
+
+                long now = System.currentTimeMillis();
+                if (now - lastReport >= PROGRESS_EVERY_MS) {
+                    lastReport = now;
+                    System.out.printf("⏳ %d records read, %d written, %.0f/s%n",
+                            processed, written.get(), processed * 1000.0 / (now - started));
+                }
+            }
+        }
+        if (!batch.isEmpty()) pending.add(submit(workers, inFlight, batch));
+
+        for (Future<?> f : pending) {
+            try {
+                f.get();
+            } catch (ExecutionException e) {
+                System.err.println("⚠️ Bulk write failed: " + e.getCause().getMessage());
+            }
+        }
+        workers.shutdown();
+
+        long removed = stored.keySet().stream().filter(id -> !seen.contains(id)).count();
+        System.out.printf("%s %d record(s) in %.1fs: %d new, %d changed, %d unchanged, %d invalid%n",
+                dryRun ? "🔍 Dry run:" : "✅ Imported", processed, (System.currentTimeMillis() - started) / 1000.0,
+                inserts, updates, unchanged, invalid);
+        if (!dryRun) System.out.printf("   %d written, %d failed%n", written.get(), failed.get());
+        if (removed > 0) System.out.printf("   %d skin(s) in the database are not in the file (left untouched)%n", removed);
+
+        if (written.get() > 0) SkinPool.markChanged();
+    }
+
+    /** Blocks while WORKERS * 2 batches are queued, so a fast reader can't run ahead of MongoDB. */
+    private static Future<?> submit(ExecutorService workers, Semaphore inFlight, List<WriteModel<Skin>> batch)
+            throws InterruptedException {
+        inFlight.acquire();
+        return workers.submit(() -> {
+            try {
+                MongoUtil.skinModels().bulkWrite(batch, new BulkWriteOptions().ordered(false));
+                written.addAndGet(batch.size());
+            } catch (MongoBulkWriteException e) {
+                failed.addAndGet(e.getWriteErrors().size());
+                written.addAndGet(batch.size() - e.getWriteErrors().size());
+            } catch (RuntimeException e) {
+                // Timeout, network or server error: none of the batch is known to be written
+                failed.addAndGet(batch.size());
+                System.err.println("⚠️ Bulk write of " + batch.size() + " skin(s) failed: " + e.getMessage());
+            } finally {
+                inFlight.release();
+            }
+        });
+    }
+
+    private static Map<String, String> storedHashes() {
+        Map<String, String> hashes = new HashMap<>();
+        for (Document d : MongoUtil.skins().find().projection(Projections.include("_id", "hash"))) {
+            Object id = d.get("_id");
+            if (id != null) hashes.put(id.toString(), d.getString("hash") != null ? d.getString("hash") : "");
+        }
+        return hashes;
+    }
+
+    /**
+     * One skin object, field by field; unknown fields are skipped. A value of the wrong type
+     * (e.g. {@code "price": "abc"}) is skipped and reported in {@code typeErrors}, so the reader
+     * stays on the record boundary and the import goes on with the next one.
+     */
+    private static Skin readSkin(JsonReader reader, List<String> typeErrors) throws IOException {
+        Skin s = new Skin();
+        if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+            typeErrors.add("expected an object but was " + reader.peek());
+            reader.skipValue();
+            return s;
+        }
+        String wear = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String field = reader.nextName();
+            if (reader.peek() == JsonToken.NULL) {
+                reader.nextNull();
+                continue;
+            }
+            try {
+                switch (field) {
+                    case "_id" -> s.id = reader.nextString();
+                    case "name" -> s.name = reader.nextString();
+                    case "condition" -> s.condition = reader.nextString();
+                    case "wear" -> wear = reader.nextString();
+                    case "price" -> s.price = reader.nextDouble();
+                    case "image" -> s.image = reader.nextString();
+                    case "rarity" -> s.rarity = reader.nextString();
+                    case "float" -> s.floatValue = reader.nextDouble();
+                    case "minFloat" -> s.minFloat = reader.nextDouble();
+                    case "maxFloat" -> s.maxFloat = reader.nextDouble();
+                    default -> reader.skipValue();
+                }
+            } catch (IllegalStateException | NumberFormatException e) {
+                // The value wasn't consumed, so skipping it puts the reader on the next field
+                typeErrors.add(field + ": " + e.getMessage());
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        if (s.condition == null) s.condition = wear;
+        return s;
+    }
+
+    private static String describe(Skin s, String problem) {
+        return s.id != null ? s.id + ": " + problem : problem;
+    }
+
+    /** Returns why the record can't be imported, or null if it's fine. */
+    private static String validate(Skin s, Set<String> seen) {
+        if (s.id == null || s.id.isBlank()) return "missing _id";
+        if (s.name == null || s.name.isBlank()) return s.id + ": missing name";
+        if (!Double.isFinite(s.price) || s.price < 0) return s.id + ": invalid price " + s.price;
+        if (s.minFloat < 0 || s.maxFloat > 1 || s.minFloat > s.maxFloat) {
+            return s.id + ": invalid float range " + s.minFloat + "-" + s.maxFloat;
+        }
+        if (!seen.add(s.id)) return s.id + ": duplicate _id";
+        return null;
+    }
 }
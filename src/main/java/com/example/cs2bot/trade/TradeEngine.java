@@ -0,0 +1,356 @@
+package com.example.cs2bot.trade;
+
+import com.example.cs2bot.db.MongoUtil;
+import com.example.cs2bot.models.Trade;
+import com.example.cs2bot.models.User;
+import com.example.cs2bot.valuation.Valuation;
+import com.mongodb.*;
+import com.mongodb.client.ClientSession;
+import com.mongodb.client.model.*;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
+
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Moves items between two inventories atomically.
+ * <p>
+ * A proposal reserves the offered items ({@code inventory.$.reservedBy = tradeId}) so they can't be
+ * offered twice. Accepting runs one multi-document transaction that flips the trade from pending to
+ * completed, then {@code $pull}s each side's items by uid and {@code $push}es them to the other user.
+ * Every write is conditional on the item still being where the trade expects it, so two trades racing
+ * for the same item end with one commit and one write conflict, never a duplicate.
+ * <p>
+ * Write conflicts are retried a bounded number of times with jittered backoff. In-process, a striped
+ * lock per user keeps operations on the same inventory ordered (and avoids most conflicts); stripes are
+ * always taken in index order, so two trades between the same users can't deadlock.
+ */
+public final class TradeEngine {
+
+    public static final int MAX_ITEMS_PER_SIDE = 10;
+
+    private static final int MAX_ATTEMPTS = 5;
+    private static final int STRIPES = 64;
+    static final long LOCK_WAIT_MS = 3000;
+
+    private static final ReentrantLock[] locks = new ReentrantLock[STRIPES];
+    static {
+        for (int i = 0; i < STRIPES; i++) locks[i] = new ReentrantLock();
+    }
+
+    private static final TransactionOptions TXN = TransactionOptions.builder()
+            .readPreference(ReadPreference.primary())
+            .readConcern(ReadConcern.SNAPSHOT)
+            .writeConcern(WriteConcern.MAJORITY)
+            .build();
+
+    private static final LongAdder completed = new LongAdder();
+    private static final LongAdder rejected = new LongAdder();
+    private static final LongAdder retries = new LongAdder();
+
+    /** A trade that can't go ahead; the message is shown to the user as-is. */
+    public static class TradeException extends RuntimeException {
+        public final boolean closed;
+
+        public TradeException(String message, boolean closed) {
+            super(message);
+            this.closed = closed;
+        }
+    }
+
+    /** Contention or shutdown, not a problem with the trade itself; it stays pending. */
+    static final class Busy extends TradeException {
+        Busy(String message) {
+            super(message, false);
+        }
+    }
+
+    private TradeEngine() {}
+
+    /**
+     * Creates a pending trade and reserves the offered items. Requested items are only checked
+     * when the trade is accepted, so nobody can lock up another user's inventory.
+     */
+    public static Trade propose(String fromId, String toId, List<User.InventoryItem> offer, List<User.InventoryItem> request) {
+        if (fromId.equals(toId)) throw new TradeException("You can't trade with yourself.", false);
+        if (offer.isEmpty() && request.isEmpty()) throw new TradeException("A trade needs at least one item.", false);
+        if (offer.size() > MAX_ITEMS_PER_SIDE || request.size() > MAX_ITEMS_PER_SIDE) {
+            throw new TradeException("At most " + MAX_ITEMS_PER_SIDE + " items per side.", false);
+        }
+
+        Trade t = new Trade();
+        t.id = new ObjectId().toHexString();
+        t.from = fromId;
+        t.to = toId;
+        t.createdAt = new Date();
+        t.initiatorConfirmed = true;
+        t.offer = offerItems(offer);
+        t.request = offerItems(request);
+
+        return withUsers(List.of(fromId), () -> inTransaction(session -> {
+            if (!t.offer.isEmpty() && !reserve(session, fromId, t.offerUids(), t.id)) {
+                throw new TradeException("One of your items is already in another trade or no longer yours.", false);
+            }
+            MongoUtil.tradeModels().insertOne(session, t);
+            return t;
+        }));
+    }
+
+    /** Recipient accepts: both sides move in one transaction, or nothing moves and the trade fails. */
+    public static Trade accept(String tradeId, String actorId) {
+        Trade t = load(tradeId);
+        if (!actorId.equals(t.to)) throw new TradeException("Only the recipient can accept this trade.", false);
+
+        try {
+            withUsers(List.of(t.from, t.to), () -> inTransaction(session -> {
+                UpdateResult r = MongoUtil.trades().updateOne(session,
+                        Filters.and(Filters.eq("_id", new ObjectId(t.id)), Filters.eq("status", Trade.PENDING)),
+                        Updates.combine(
+                                Updates.set("status", Trade.COMPLETED),
+                                Updates.set("recipientConfirmed", true),
+                                Updates.currentDate("completedAt")));
+                if (r.getModifiedCount() == 0) throw new TradeException("This trade is no longer pending.", true);
+
+                move(session, t.from, t.to, t.offerUids(), t.id);
+                move(session, t.to, t.from, t.requestUids(), null);
+                return null;
+            }));
+        } catch (Busy e) {
+            throw e;
+        } catch (TradeException e) {
+            // Nothing was written; close the trade so the offered items are free again
+            if (!e.closed) {
+                try {
+                    close(t, Trade.FAILED);
+                } catch (TradeException alreadyClosed) { }
+            }
+            rejected.increment();
+            throw new TradeException(e.getMessage(), true);
+        }
+
+        completed.increment();
+        Valuation.itemsMoved(t.from, t.to, skinIds(t.offer));
+        Valuation.itemsMoved(t.to, t.from, skinIds(t.request));
+        t.status = Trade.COMPLETED;
+        t.recipientConfirmed = true;
+        return t;
+    }
+
+    public static Trade decline(String tradeId, String actorId) {
+        Trade t = load(tradeId);
+        if (!actorId.equals(t.to)) throw new TradeException("Only the recipient can decline this trade.", false);
+        return close(t, Trade.DECLINED);
+    }
+
+    public static Trade cancel(String tradeId, String actorId) {
+        Trade t = load(tradeId);
+        if (!actorId.equals(t.from)) throw new TradeException("Only the sender can cancel this trade.", false);
+        return close(t, Trade.CANCELLED);
+    }
+
+    /**
+     * Moves a pending trade to {@code status} and releases its reservations.
+     * Throws a closed TradeException if it was no longer pending.
+     */
+    public static Trade close(Trade t, String status) {
+        boolean changed = withUsers(List.of(t.from), () -> inTransaction(session -> {
+            UpdateResult r = MongoUtil.trades().updateOne(session,
+                    Filters.and(Filters.eq("_id", new ObjectId(t.id)), Filters.eq("status", Trade.PENDING)),
+                    Updates.combine(Updates.set("status", status), Updates.currentDate("closedAt")));
+            if (r.getModifiedCount() == 0) return false;
+            release(session, t.from, t.id);
+            return true;
+        }));
+        if (!changed) throw new TradeException("This trade is no longer pending.", true);
+        t.status = status;
+        return t;
+    }
+
+    /** Completed / rejected trades and transaction retries since startup. */
+    public static String stats() {
+        return String.format("completed=%d rejected=%d retries=%d", completed.sum(), rejected.sum(), retries.sum());
+    }
+
+    // --- inventory moves ---
+
+    /** Marks the items as held by {@code tradeId}; false unless every one was owned and unreserved. */
+    private static boolean reserve(ClientSession session, String userId, List<String> uids, String tradeId) {
+        List<Document> unreserved = new ArrayList<>(uids.size());
+        for (String uid : uids) {
+            unreserved.add(new Document("$elemMatch", new Document("uid", uid).append("reservedBy", null)));
+        }
+        UpdateResult r = MongoUtil.users().updateOne(session,
+                Filters.and(Filters.eq("_id", userId), Filters.all("inventory", unreserved)),
+                Updates.set("inventory.$[i].reservedBy", tradeId),
+                new UpdateOptions().arrayFilters(List.of(Filters.in("i.uid", uids))));
+        return r.getModifiedCount() == 1;
+    }
+
+    static void release(ClientSession session, String userId, String tradeId) {
+        MongoUtil.users().updateOne(session,
+                Filters.and(Filters.eq("_id", userId), Filters.eq("inventory.reservedBy", tradeId)),
+                Updates.unset("inventory.$[i].reservedBy"),
+                new UpdateOptions().arrayFilters(List.of(Filters.eq("i.reservedBy", tradeId))));
+    }
+
+    /**
+     * Pulls {@code uids} out of {@code owner}'s inventory and pushes them to {@code receiver}.
+     * Offered items must still be reserved by this trade ({@code heldBy}); requested items
+     * ({@code heldBy == null}) must not be reserved by any trade.
+     */
+    private static void move(ClientSession session, String owner, String receiver, List<String> uids, String heldBy) {
+        if (uids.isEmpty()) return;
+
+        List<User.InventoryItem> items = itemsOf(session, owner, uids);
+        if (items.size() != uids.size()) {
+            throw new TradeException("Some of the items in this trade are no longer in <@" + owner + ">'s inventory.", false);
+        }
+        for (User.InventoryItem item : items) {
+            if (!Objects.equals(item.reservedBy, heldBy)) {
+                throw new TradeException("Some of the requested items are already in another trade.", false);
+            }
+            item.reservedBy = null;
+        }
+
+        Bson owned = Filters.and(Filters.eq("_id", owner), Filters.all("inventory.uid", uids));
+        UpdateResult pulled = MongoUtil.users().updateOne(session, owned,
+                Updates.pull("inventory", Filters.in("uid", uids)));
+        if (pulled.getModifiedCount() != 1) {
+            throw new TradeException("Some of the items in this trade are no longer in <@" + owner + ">'s inventory.", false);
+        }
+
+        MongoUtil.users().updateOne(session, Filters.eq("_id", receiver),
+                Updates.combine(Updates.pushEach("inventory", items), Updates.setOnInsert("keys", 0)),
+                new UpdateOptions().upsert(true));
+    }
+
+    /** Just the matching items, filtered server-side so large inventories don't cross the wire. */
+    private static List<User.InventoryItem> itemsOf(ClientSession session, String userId, List<String> uids) {
+        Document d = MongoUtil.users().aggregate(session, List.of(
+                Aggregates.match(Filters.eq("_id", userId)),
+                Aggregates.project(new Document("_id", 0).append("items", new Document("$filter", new Document()
+                        .append("input", new Document("$ifNull", List.of("$inventory", List.of())))
+                        .append("as", "i")
+                        .append("cond", new Document("$in", List.of("$$i.uid", uids))))))
+        )).first();
+
+        List<User.InventoryItem> items = new ArrayList<>();
+        if (d != null) {
+            for (Document item : d.getList("items", Document.class, List.of())) items.add(User.InventoryItem.fromDocument(item));
+        }
+        return items;
+    }
+
+    private static List<Trade.OfferItem> offerItems(List<User.InventoryItem> items) {
+        Set<String> seen = new HashSet<>();
+        List<Trade.OfferItem> out = new ArrayList<>(items.size());
+        for (User.InventoryItem item : items) {
+            if (item.uid == null) throw new TradeException("Items unboxed before trading existed can't be traded.", false);
+            if (!seen.add(item.uid)) throw new TradeException("The same item is listed twice.", false);
+            out.add(new Trade.OfferItem(item.uid, item.skin_id));
+        }
+        return out;
+    }
+
+    private static List<String> skinIds(List<Trade.OfferItem> items) {
+        List<String> out = new ArrayList<>(items.size());
+        for (Trade.OfferItem item : items) out.add(item.skin_id);
+        return out;
+    }
+
+    private static Trade load(String tradeId) {
+        if (!ObjectId.isValid(tradeId)) throw new TradeException("Unknown trade.", true);
+        Trade t = MongoUtil.tradeModels().find(Filters.eq("_id", new ObjectId(tradeId))).first();
+        if (t == null) throw new TradeException("Unknown trade.", true);
+        if (!Trade.PENDING.equals(t.status)) throw new TradeException("This trade is already " + t.status + ".", true);
+        return t;
+    }
+
+    // --- concurrency ---
+
+    /**
+     * Runs {@code body} in a transaction, retrying transient errors (write conflicts, elections)
+     * up to {@link #MAX_ATTEMPTS} times. TradeExceptions abort without retrying.
+     */
+    private static <T> T inTransaction(Function<ClientSession, T> body) {
+        try (ClientSession session = MongoUtil.client().startSession()) {
+            for (int attempt = 1; ; attempt++) {
+                session.startTransaction(TXN);
+                try {
+                    T result = body.apply(session);
+                    commit(session);
+                    return result;
+                } catch (MongoException e) {
+                    abortQuietly(session);
+                    if (!e.hasErrorLabel(MongoException.TRANSIENT_TRANSACTION_ERROR_LABEL) || attempt >= MAX_ATTEMPTS) throw e;
+                    retries.increment();
+                    backoff(attempt);
+                } catch (RuntimeException e) {
+                    abortQuietly(session);
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private static void commit(ClientSession session) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                session.commitTransaction();
+                return;
+            } catch (MongoException e) {
+                if (!e.hasErrorLabel(MongoException.UNKNOWN_TRANSACTION_COMMIT_RESULT_LABEL) || attempt >= MAX_ATTEMPTS) throw e;
+                retries.increment();
+            }
+        }
+    }
+
+    private static void abortQuietly(ClientSession session) {
+        try {
+            if (session.hasActiveTransaction()) session.abortTransaction();
+        } catch (Exception ignored) { }
+    }
+
+    private static void backoff(int attempt) {
+        long base = 10L << attempt;
+        try {
+            Thread.sleep(base + ThreadLocalRandom.current().nextLong(base));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new Busy("Trade interrupted, please try again.");
+        }
+    }
+
+    /** Holds the stripe locks for every user involved, taken in index order. Package-private for the stress test. */
+    static <T> T withUsers(List<String> userIds, Supplier<T> body) {
+        int[] stripes = userIds.stream().mapToInt(TradeEngine::stripe).distinct().sorted().toArray();
+        int held = 0;
+        try {
+            for (int s : stripes) {
+                if (!locks[s].tryLock(LOCK_WAIT_MS, TimeUnit.MILLISECONDS)) {
+                    throw new Busy("Too many trades at once, please try again.");
+                }
+                held++;
+            }
+            return body.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new Busy("Trade interrupted, please try again.");
+        } finally {
+            for (int i = held - 1; i >= 0; i--) locks[stripes[i]].unlock();
+        }
+    }
+
+    private static int stripe(String userId) {
+        int h = userId.hashCode();
+        return (h ^ (h >>> 16)) & (STRIPES - 1);
+    }
+}
@@ -0,0 +1,202 @@
+package com.example.cs2bot.trade;
+
+import com.example.cs2bot.db.MongoUtil;
+import com.example.cs2bot.models.Trade;
+import com.mongodb.client.model.*;
+import net.dv8tion.jda.api.JDA;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
+
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Expires pending trades older than {@link #TRADE_TTL_MINUTES} and frees their reserved items.
+ * <p>
+ * Each run walks {@code {status: "pending", createdAt < cutoff}} in {@code (createdAt, _id)} order
+ * through the {@code status_createdAt} index, {@link #BATCH} trades per query and at most
+ * {@link #MAX_BATCHES_PER_RUN} batches per run. The position is kept between runs, so a large
+ * backlog is worked off over several runs instead of one long scan. Participants get one
+ * DM per run listing all of their expired trades.
+ * <p>
+ * Each trade is expired through {@link TradeEngine#close}, so the status flip and the release of
+ * its reservations commit together. Every run also repairs reservations left pointing at a trade
+ * that is no longer pending (written before expiry was transactional), which would otherwise
+ * keep those items locked for good.
+ */
+public final class TradeSweeper {
+
+    public static final long TRADE_TTL_MINUTES = 30;
+
+    private static final int BATCH = 200;
+    private static final int MAX_BATCHES_PER_RUN = 20;
+    private static final long INTERVAL_SECONDS = 60;
+    private static final long QUERY_MAX_TIME_MS = 5000;
+
+    private static final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "trade-sweeper");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private static JDA jda;
+
+    // Resume point, only touched by the sweeper thread
+    private static Date lastCreatedAt;
+    private static ObjectId lastId;
+
+    private TradeSweeper() {}
+
+    public static void start(JDA discord) {
+        jda = discord;
+        scheduler.scheduleWithFixedDelay(TradeSweeper::sweepSafely, INTERVAL_SECONDS, INTERVAL_SECONDS, TimeUnit.SECONDS);
+        System.out.println("🧹 Trade sweeper started (ttl=" + TRADE_TTL_MINUTES + "min, every " + INTERVAL_SECONDS + "s)");
+    }
+
+    private static void sweepSafely() {
+        try {
+            int expired = sweep();
+            if (expired > 0) System.out.println("[TradeSweeper] 🧹 Expired " + expired + " trade(s)");
+            int repaired = repairOrphanedReservations();
+            if (repaired > 0) System.out.println("[TradeSweeper] 🔧 Released items held by " + repaired + " closed trade(s)");
+        } catch (Exception e) {
+            System.err.println("[TradeSweeper] ⚠️ Sweep failed, resuming next run: " + e.getMessage());
+        }
+    }
+
+    /** One bounded run. Returns how many trades this run expired. */
+    static int sweep() {
+        Date cutoff = new Date(System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(TRADE_TTL_MINUTES));
+        Map<String, List<Trade>> notices = new LinkedHashMap<>();
+        int expired = 0;
+
+        for (int b = 0; b < MAX_BATCHES_PER_RUN; b++) {
+            List<Trade> batch = new ArrayList<>(BATCH);
+            MongoUtil.tradeModels().find(Filters.and(
+                            Filters.eq("status", Trade.PENDING),
+                            Filters.lt("createdAt", cutoff),
+                            after()))
+                    .sort(Sorts.ascending("createdAt", "_id"))
+                    .limit(BATCH)
+                    .maxTime(QUERY_MAX_TIME_MS, TimeUnit.MILLISECONDS)
+                    .into(batch);
+
+            if (batch.isEmpty()) {
+                // Reached the end of the backlog; the next run starts from the oldest again
+                lastCreatedAt = null;
+                lastId = null;
+                break;
+            }
+
+            for (Trade t : expire(batch)) {
+                expired++;
+                notices.computeIfAbsent(t.from, k -> new ArrayList<>()).add(t);
+                notices.computeIfAbsent(t.to, k -> new ArrayList<>()).add(t);
+            }
+
+            Trade last = batch.get(batch.size() - 1);
+            lastCreatedAt = last.createdAt;
+            lastId = new ObjectId(last.id);
+            if (batch.size() < BATCH) {
+                lastCreatedAt = null;
+                lastId = null;
+                break;
+            }
+        }
+
+        notify(notices);
+        return expired;
+    }
+
+    /** Keyset condition for resuming after the last trade seen. */
+    private static Bson after() {
+        if (lastCreatedAt == null) return new Document();
+        return Filters.or(
+                Filters.gt("createdAt", lastCreatedAt),
+                Filters.and(Filters.eq("createdAt", lastCreatedAt), Filters.gt("_id", lastId)));
+    }
+
+    /**
+     * Expires each trade in its own transaction (status and reservations together) and returns
+     * the ones this sweep actually expired. Trades accepted or cancelled in between are left
+     * alone; trades whose users are busy stay pending for a later run.
+     */
+    private static List<Trade> expire(List<Trade> batch) {
+        List<Trade> out = new ArrayList<>(batch.size());
+        for (Trade t : batch) {
+            try {
+                out.add(TradeEngine.close(t, Trade.EXPIRED));
+            } catch (TradeEngine.TradeException notPendingOrBusy) { }
+        }
+        return out;
+    }
+
+    /**
+     * Frees items whose {@code reservedBy} names a trade that is no longer pending. A closed trade
+     * never becomes pending again, so these reservations can be dropped without a transaction.
+     * Returns the number of trades whose leftovers were released.
+     */
+    static int repairOrphanedReservations() {
+        Map<String, List<String>> ownersByTrade = new HashMap<>();
+        for (Document d : MongoUtil.users().aggregate(List.of(
+                Aggregates.match(Filters.exists("inventory.reservedBy")),
+                Aggregates.unwind("$inventory"),
+                Aggregates.match(Filters.exists("inventory.reservedBy")),
+                Aggregates.group("$inventory.reservedBy", Accumulators.addToSet("owners", "$_id"))))) {
+            ownersByTrade.put(d.getString("_id"), d.getList("owners", String.class));
+        }
+        if (ownersByTrade.isEmpty()) return 0;
+
+        List<ObjectId> ids = new ArrayList<>(ownersByTrade.size());
+        for (String id : ownersByTrade.keySet()) if (ObjectId.isValid(id)) ids.add(new ObjectId(id));
+        Set<String> pending = new HashSet<>();
+        for (Document d : MongoUtil.trades()
+                .find(Filters.and(Filters.in("_id", ids), Filters.eq("status", Trade.PENDING)))
+                .projection(Projections.include("_id"))) {
+            pending.add(d.getObjectId("_id").toHexString());
+        }
+
+        Map<String, List<String>> orphansByUser = new HashMap<>();
+        ownersByTrade.forEach((tradeId, owners) -> {
+            if (pending.contains(tradeId)) return;
+            for (String owner : owners) orphansByUser.computeIfAbsent(owner, k -> new ArrayList<>()).add(tradeId);
+        });
+        if (orphansByUser.isEmpty()) return 0;
+
+        List<WriteModel<Document>> releases = new ArrayList<>(orphansByUser.size());
+        orphansByUser.forEach((userId, tradeIds) -> releases.add(new UpdateOneModel<>(
+                Filters.eq("_id", userId),
+                Updates.unset("inventory.$[i].reservedBy"),
+                new UpdateOptions().arrayFilters(List.of(Filters.in("i.reservedBy", tradeIds))))));
+        MongoUtil.users().bulkWrite(releases, new BulkWriteOptions().ordered(false));
+        return ownersByTrade.size() - pending.size();
+    }
+
+    /** One DM per participant; JDA queues and rate-limits the sends off this thread. */
+    private static void notify(Map<String, List<Trade>> notices) {
+        if (jda == null || notices.isEmpty()) return;
+
+        notices.forEach((userId, trades) -> {
+            StringBuilder msg = new StringBuilder("⌛ ")
+                    .append(trades.size() == 1 ? "A trade" : trades.size() + " trades")
+                    .append(" expired after ").append(TRADE_TTL_MINUTES).append(" minutes without being accepted:\n");
+            int shown = 0;
+            for (Trade t : trades) {
+                if (++shown > 10) {
+                    msg.append("…and ").append(trades.size() - 10).append(" more\n");
+                    break;
+                }
+                String other = userId.equals(t.from) ? t.to : t.from;
+                msg.append("• with <@").append(other).append("> (`").append(t.id).append("`)\n");
+            }
+            msg.append("Any items you offered are available again.");
+
+            jda.openPrivateChannelById(userId)
+                    .flatMap(channel -> channel.sendMessage(msg.toString()))
+                    .queue(null, err -> System.err.println("[TradeSweeper] ⚠️ Could not DM " + userId + ": " + err.getMessage()));
+        });
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.cs2bot.utils;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Exponential back-off with jitter: the n-th delay is a random point in the upper half of
+ * {@code min(max, base * 2^n)}, so callers that failed together don't retry together.
+ * A server-supplied {@code Retry-After} is a floor, even above {@code max}.
+ */
+public final class Backoff {
+
+    private final long baseNanos;
+    private final long maxNanos;
+    private int attempt;
+
+    public Backoff(Duration base, Duration max) {
+        this.baseNanos = base.toNanos();
+        this.maxNanos = Math.max(max.toNanos(), baseNanos);
+    }
+
+    /** The next delay; each call doubles the ceiling until {@link #reset}. */
+    public synchronized Duration next(Duration retryAfter) {
+        long ceiling = Math.min(maxNanos, baseNanos << Math.min(attempt, 20));
+        if (ceiling < 0) ceiling = maxNanos;
+        attempt++;
+
+        long delay = ceiling / 2 + ThreadLocalRandom.current().nextLong(ceiling / 2 + 1);
+        if (retryAfter != null) delay = Math.max(delay, retryAfter.toNanos());
+        return Duration.ofNanos(delay);
+    }
+
+    public synchronized void reset() {
+        attempt = 0;
+    }
+
+    public synchronized int attempt() {
+        return attempt;
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.cs2bot.utils;
+
+import com.example.cs2bot.cases.SkinPool;
+import com.example.cs2bot.db.MongoUtil;
+import com.example.cs2bot.models.Skin;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.client.model.*;
+import org.bson.Document;
+
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Keeps the {@code skins} collection in step with the Skinport feed. Every weapon skin with a
+ * wear suffix becomes a {@link Skin} keyed by its market hash name; StatTrak™ and Souvenir
+ * variants are left out because case opens roll StatTrak separately.
+ * <p>
+ * Each candidate is compared with the stored document by {@link Skin#contentHash()}, and only
+ * new or changed skins are written. The stored price is kept unless the feed moved more than
+ * {@link #PRICE_DRIFT}: live prices come from the snapshot anyway, so ordinary price changes
+ * don't rewrite the catalogue every cycle. Fields the feed doesn't carry (image, float range)
+ * and any curated rarity are taken from the stored document.
+ * <p>
+ * The rarity of a new skin is only a guess from its weapon name (AWPs and ★ knives come out
+ * Covert, weapons without a rule Unknown), so new skins are written as {@link Skin#uncurated}:
+ * {@link SkinPool} serves their prices but leaves them out of the default drop pool until someone
+ * clears the flag (e.g. by seeding them). A sync never changes what a case can drop.
+ */
+public final class CatalogueSync {
+
+    /** Relative price change after which the catalogue's fallback price is rewritten. */
+    static final double PRICE_DRIFT = 0.25;
+
+    private static final int BATCH = 1000;
+    private static final Pattern WEAR_SUFFIX = Pattern.compile(
+            "^(.+) \\((Factory New|Minimal Wear|Field-Tested|Well-Worn|Battle-Scarred)\\)$");
+
+    private CatalogueSync() {}
+
+    /** Diffs the feed against {@code skins} and upserts what changed. Returns the number of skins written. */
+    public static int sync(PriceSnapshot feed) {
+        if (feed.isEmpty() || !MongoUtil.isConnected()) return 0;
+        long started = System.currentTimeMillis();
+
+        // Only the fields the diff needs; one pass over the collection
+        Map<String, Skin> stored = new HashMap<>();
+        Map<String, String> storedHashes = new HashMap<>();
+        for (Document d : MongoUtil.skins().find()
+                .projection(Projections.include("price", "image", "rarity", "float", "minFloat", "maxFloat", "uncurated", "hash"))) {
+            Skin s = new Skin(d);
+            if (s.id == null) continue;
+            stored.put(s.id, s);
+            if (d.getString("hash") != null) storedHashes.put(s.id, d.getString("hash"));
+        }
+
+        List<WriteModel<Skin>> batch = new ArrayList<>(BATCH);
+        int[] counts = new int[3]; // candidates, inserts, updates
+        int[] written = new int[1];
+
+        feed.forEach((marketName, price) -> {
+            Skin candidate = toSkin(marketName, price);
+            if (candidate == null) return;
+            counts[0]++;
+
+            Skin prev = stored.get(candidate.id);
+            if (prev != null) {
+                candidate.image = prev.image;
+                candidate.floatValue = prev.floatValue;
+                candidate.minFloat = prev.minFloat;
+                candidate.maxFloat = prev.maxFloat;
+                // Curated skins stay curated; the feed never promotes a skin into the drop pool
+                candidate.uncurated = prev.uncurated;
+                // A curated rarity wins over the name-based guess
+                if (prev.rarity != null && !"Unknown".equals(prev.rarity)) candidate.rarity = prev.rarity;
+                if (prev.price > 0 && Math.abs(price - prev.price) / prev.price <= PRICE_DRIFT) candidate.price = prev.price;
+                if (candidate.contentHash().equals(storedHashes.get(candidate.id))) return;
+                counts[2]++;
+            } else {
+                counts[1]++;
+            }
+
+            batch.add(new ReplaceOneModel<>(Filters.eq("_id", candidate.id), candidate, new ReplaceOptions().upsert(true)));
+            if (batch.size() >= BATCH) {
+                written[0] += write(batch);
+                batch.clear();
+            }
+        });
+        if (!batch.isEmpty()) written[0] += write(batch);
+
+        if (written[0] > 0) SkinPool.markChanged();
+        System.out.printf("[CatalogueSync] ✅ %d skins in feed: %d new, %d changed, %d written in %.1fs%n",
+                counts[0], counts[1], counts[2], written[0], (System.currentTimeMillis() - started) / 1000.0);
+        return written[0];
+    }
+
+    /** Catalogue entry for a feed name, or null for items that can't drop from a case. */
+    static Skin toSkin(String marketName, double price) {
+        if (marketName.contains("StatTrak™") || marketName.startsWith("Souvenir ")) return null;
+        Matcher m = WEAR_SUFFIX.matcher(marketName);
+        if (!m.matches()) return null;
+
+        Skin s = new Skin();
+        s.id = marketName;
+        s.name = m.group(1);
+        s.condition = m.group(2);
+        s.price = price;
+        s.rarity = SteamSchemaAPI.getRarity(s.name);
+        s.uncurated = true;
+        return s;
+    }
+
+    private static int write(List<WriteModel<Skin>> batch) {
+        try {
+            MongoUtil.skinModels().bulkWrite(batch, new BulkWriteOptions().ordered(false));
+            return batch.size();
+        } catch (MongoBulkWriteException e) {
+            System.err.println("[CatalogueSync] ⚠️ " + e.getWriteErrors().size() + " skin write(s) failed");
+            return batch.size() - e.getWriteErrors().size();
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.cs2bot.utils;
+
+import java.time.Duration;
+
+/**
+ * Stops calling an upstream after {@code failureThreshold} consecutive failures. It stays open
+ * for the next {@link Backoff} delay (at least the server's {@code Retry-After}), then lets one
+ * trial call through (half-open): success closes the breaker and resets the back-off, failure
+ * opens it again for a longer delay.
+ * <p>
+ * A trial whose caller never reports back (it crashed, or swallowed an exception between the
+ * permit and the call) would hold the half-open slot forever, so the slot is handed to the next
+ * caller once {@code trialTimeout} has passed.
+ */
+public final class CircuitBreaker {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    /** Longer than any upstream call's connect + read timeout, so a live trial is never overtaken. */
+    static final Duration DEFAULT_TRIAL_TIMEOUT = Duration.ofMinutes(1);
+
+    private final String name;
+    private final int failureThreshold;
+    private final Backoff backoff;
+    private final long trialTimeoutNanos;
+
+    // Guarded by this
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openUntil;
+    private boolean trialInFlight;
+    private long trialStarted;
+    private long opens;
+    private long rejected;
+
+    public CircuitBreaker(String name, int failureThreshold, Backoff backoff) {
+        this(name, failureThreshold, backoff, DEFAULT_TRIAL_TIMEOUT);
+    }
+
+    public CircuitBreaker(String name, int failureThreshold, Backoff backoff, Duration trialTimeout) {
+        this.name = name;
+        this.failureThreshold = failureThreshold;
+        this.backoff = backoff;
+        this.trialTimeoutNanos = trialTimeout.toNanos();
+    }
+
+    /** True if a call may go ahead now. In half-open state only one trial call is allowed. */
+    public synchronized boolean allow() {
+        long now = System.nanoTime();
+        if (state == State.OPEN && now - openUntil >= 0) {
+            state = State.HALF_OPEN;
+            trialInFlight = false;
+        }
+        boolean allowed = switch (state) {
+            case CLOSED -> true;
+            case OPEN -> false;
+            case HALF_OPEN -> {
+                if (trialInFlight) {
+                    if (now - trialStarted < trialTimeoutNanos) yield false;
+                    System.err.println("[CircuitBreaker] ⚠️ " + name + " trial call never reported back — allowing another");
+                }
+                trialInFlight = true;
+                trialStarted = now;
+                yield true;
+            }
+        };
+        if (!allowed) rejected++;
+        return allowed;
+    }
+
+    public synchronized void onSuccess() {
+        consecutiveFailures = 0;
+        backoff.reset();
+        if (state != State.CLOSED) {
+            System.out.println("[CircuitBreaker] ✅ " + name + " closed");
+            state = State.CLOSED;
+        }
+    }
+
+    public void onFailure() {
+        onFailure(null);
+    }
+
+    /** Counts a failure; {@code retryAfter} (may be null) is the least time to stay open if this trips the breaker. */
+    public synchronized void onFailure(Duration retryAfter) {
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || (state == State.CLOSED && consecutiveFailures >= failureThreshold)) {
+            Duration openFor = backoff.next(retryAfter);
+            state = State.OPEN;
+            openUntil = System.nanoTime() + openFor.toNanos();
+            opens++;
+            System.err.printf("[CircuitBreaker] ⚠️ %s open for %.1fs after %d failure(s)%n",
+                    name, openFor.toMillis() / 1000.0, consecutiveFailures);
+        }
+    }
+
+    /** The allowed call didn't happen after all (e.g. no rate-limit token); frees the half-open trial slot. */
+    public synchronized void onSkipped() {
+        trialInFlight = false;
+    }
+
+    public synchronized State state() {
+        return state;
+    }
+
+    /** Time left before an open breaker goes half-open; zero otherwise. */
+    public synchronized Duration remainingOpen() {
+        return state == State.OPEN ? Duration.ofNanos(Math.max(0, openUntil - System.nanoTime())) : Duration.ZERO;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("%s=%s failures=%d opens=%d rejected=%d%s", name, state, consecutiveFailures, opens,
+                rejected, state == State.OPEN ? " reopens-in=" + remainingOpen().toSeconds() + "s" : "");
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.cs2bot.utils;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Everything that guards one upstream: its {@link RateLimiter}, its {@link CircuitBreaker} and
+ * call outcome counters. Every caller of an upstream goes through the same instance, so the
+ * interactive lookups and the background jobs see one breaker state.
+ * <p>
+ * Callers ask for a permit first and get a fast "no" while the breaker is open or the limiter is
+ * paused, instead of sleeping through an outage. They then report the HTTP status (or the
+ * exception) so 429s pause the limiter for {@code Retry-After} and 429/5xx/IO errors count
+ * against the breaker.
+ */
+public final class Endpoint {
+
+    /** Skinport's 429s usually come without Retry-After; its window is 5 minutes, so pause for 3. */
+    public static final Endpoint SKINPORT = new Endpoint("skinport", RateLimiter.SKINPORT,
+            3, new Backoff(Duration.ofMinutes(1), Duration.ofMinutes(30)), Duration.ofMinutes(3));
+    public static final Endpoint STEAM = new Endpoint("steam", RateLimiter.STEAM,
+            5, new Backoff(Duration.ofSeconds(15), Duration.ofMinutes(10)));
+    public static final Endpoint CSFLOAT = new Endpoint("csfloat", RateLimiter.CSFLOAT,
+            5, new Backoff(Duration.ofSeconds(15), Duration.ofMinutes(10)));
+
+    private static final List<Endpoint> ALL = List.of(SKINPORT, STEAM, CSFLOAT);
+
+    private final String name;
+    private final RateLimiter limiter;
+    private final CircuitBreaker breaker;
+    private final Duration defaultRetryAfter;
+
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder ok = new LongAdder();
+    private final LongAdder throttled = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder refused = new LongAdder();
+
+    /** Public so a test harness can wrap its own limiter and a breaker around a local fake server. */
+    public Endpoint(String name, RateLimiter limiter, int failureThreshold, Backoff backoff) {
+        this(name, limiter, failureThreshold, backoff, null);
+    }
+
+    private Endpoint(String name, RateLimiter limiter, int failureThreshold, Backoff backoff, Duration defaultRetryAfter) {
+        this.name = name;
+        this.limiter = limiter;
+        this.breaker = new CircuitBreaker(name, failureThreshold, backoff);
+        this.defaultRetryAfter = defaultRetryAfter;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public CircuitBreaker breaker() {
+        return breaker;
+    }
+
+    /** Permit for one call, only if a token is available right now. Never blocks. */
+    public boolean tryPermit() {
+        if (!breaker.allow()) {
+            refused.increment();
+            return false;
+        }
+        if (!limiter.tryAcquire()) {
+            breaker.onSkipped();
+            refused.increment();
+            return false;
+        }
+        calls.increment();
+        return true;
+    }
+
+    /** Permit for one call, waiting up to {@code maxWait} for a token. False at once while the breaker is open. */
+    public boolean permit(Duration maxWait) throws InterruptedException {
+        if (!breaker.allow()) {
+            refused.increment();
+            return false;
+        }
+        boolean got;
+        try {
+            got = limiter.acquire(maxWait);
+        } catch (InterruptedException e) {
+            // Must not leave a half-open trial slot taken
+            breaker.onSkipped();
+            throw e;
+        }
+        if (!got) {
+            breaker.onSkipped();
+            refused.increment();
+            return false;
+        }
+        calls.increment();
+        return true;
+    }
+
+    /** Reports the status of a permitted call. {@code retryAfter} is the raw header value, or null. */
+    public void record(int status, String retryAfter) {
+        if (status == 429) {
+            Duration pause = RateLimiter.parseRetryAfter(retryAfter);
+            if (pause == null) pause = defaultRetryAfter;
+            throttled.increment();
+            limiter.onThrottled(pause);
+            breaker.onFailure(pause);
+        } else if (status >= 500) {
+            failed.increment();
+            breaker.onFailure();
+        } else {
+            ok.increment();
+            limiter.onSuccess();
+            breaker.onSuccess();
+        }
+    }
+
+    /** Reports a permitted call that failed without a status (connect error, timeout, bad body). */
+    public void recordError(Throwable error) {
+        failed.increment();
+        breaker.onFailure();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: calls=%d ok=%d throttled=%d failed=%d refused=%d | %s | %s",
+                name, calls.sum(), ok.sum(), throttled.sum(), failed.sum(), refused.sum(), breaker, limiter);
+    }
+
+    public static List<Endpoint> all() {
+        return ALL;
+    }
+
+    /** One line per upstream: outcomes, breaker state and limiter rate. */
+    public static String metrics() {
+        StringBuilder sb = new StringBuilder();
+        for (Endpoint e : ALL) sb.append(e).append('\n');
+        return sb.toString();
+    }
+}
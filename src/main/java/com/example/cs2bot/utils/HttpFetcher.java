@@ -0,0 +1,157 @@
+package com.example.cs2bot.utils;
+
+import org.brotli.dec.BrotliInputStream;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Shared HTTP GET client: one {@link HttpClient} (HTTP/2, pooled connections),
+ * brotli/gzip/deflate decoding, and conditional requests with ETag / Last-Modified.
+ * <p>
+ * Validators are only remembered once the caller calls {@link Response#commit()}, so a
+ * body that failed to parse is downloaded again next time instead of being skipped by a 304.
+ * Takes the {@link HttpClient} as a constructor argument so it can be pointed at a local stub server.
+ */
+public class HttpFetcher {
+
+    public static final HttpFetcher SHARED = new HttpFetcher(HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_2)
+            .connectTimeout(Duration.ofSeconds(10))
+            .followRedirects(HttpClient.Redirect.NORMAL)
+            .build());
+
+    private static final String ACCEPT_ENCODING = "br, gzip, deflate";
+
+    private record Validators(String etag, String lastModified) {}
+
+    private final HttpClient client;
+    private final Map<URI, Validators> validators = new ConcurrentHashMap<>();
+
+    public HttpFetcher(HttpClient client) {
+        this.client = client;
+    }
+
+    /** A response whose body is already decompressed. Close it when done. */
+    public final class Response implements Closeable {
+        private final URI uri;
+        private final int status;
+        private final HttpHeaders headers;
+        private final InputStream body;
+
+        private Response(URI uri, HttpResponse<?> raw, InputStream body) {
+            this.uri = uri;
+            this.status = raw.statusCode();
+            this.headers = raw.headers();
+            this.body = body;
+        }
+
+        public int status() {
+            return status;
+        }
+
+        /** True for a 304: nothing changed since the last committed response. */
+        public boolean notModified() {
+            return status == 304;
+        }
+
+        public HttpHeaders headers() {
+            return headers;
+        }
+
+        public InputStream body() {
+            return body;
+        }
+
+        /** Remembers this response's ETag / Last-Modified for the next conditional request. */
+        public void commit() {
+            String etag = headers.firstValue("ETag").orElse(null);
+            String lastModified = headers.firstValue("Last-Modified").orElse(null);
+            if (etag != null || lastModified != null) validators.put(uri, new Validators(etag, lastModified));
+        }
+
+        @Override
+        public void close() throws IOException {
+            body.close();
+        }
+    }
+
+    /**
+     * GETs {@code uri}. With {@code conditional}, sends the validators from the last
+     * committed response so the server can answer 304 without a body.
+     */
+    public Response get(URI uri, Map<String, String> headers, Duration timeout, boolean conditional)
+            throws IOException, InterruptedException {
+        HttpRequest.Builder req = HttpRequest.newBuilder(uri)
+                .timeout(timeout)
+                .header("Accept-Encoding", ACCEPT_ENCODING)
+                .GET();
+        headers.forEach(req::header);
+
+        if (conditional) {
+            Validators v = validators.get(uri);
+            if (v != null) {
+                if (v.etag() != null) req.header("If-None-Match", v.etag());
+                if (v.lastModified() != null) req.header("If-Modified-Since", v.lastModified());
+            }
+        }
+
+        HttpResponse<InputStream> raw = client.send(req.build(), HttpResponse.BodyHandlers.ofInputStream());
+        return new Response(uri, raw, hasBody(raw) ? decode(raw.headers(), raw.body()) : raw.body());
+    }
+
+    /**
+     * Unconditional GET that never blocks the caller. The body is buffered in memory before the
+     * future completes, so parsing it doesn't park an HTTP client thread; meant for small API responses.
+     */
+    public CompletableFuture<Response> getAsync(URI uri, Map<String, String> headers, Duration timeout) {
+        HttpRequest.Builder req = HttpRequest.newBuilder(uri)
+                .timeout(timeout)
+                .header("Accept-Encoding", ACCEPT_ENCODING)
+                .GET();
+        headers.forEach(req::header);
+
+        return client.sendAsync(req.build(), HttpResponse.BodyHandlers.ofByteArray()).thenApply(raw -> {
+            InputStream bytes = new ByteArrayInputStream(raw.body());
+            try {
+                return new Response(uri, raw, hasBody(raw) ? decode(raw.headers(), bytes) : bytes);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    /** Forgets stored validators, forcing the next request to download the full body. */
+    public void invalidate(URI uri) {
+        validators.remove(uri);
+    }
+
+    /** 304s and most errors have no body, and an empty body is not valid gzip. */
+    private static boolean hasBody(HttpResponse<?> raw) {
+        return raw.statusCode() >= 200 && raw.statusCode() < 300 && raw.statusCode() != 204;
+    }
+
+    private static InputStream decode(HttpHeaders headers, InputStream in) throws IOException {
+        String encoding = headers.firstValue("Content-Encoding").orElse("identity").trim().toLowerCase();
+        return switch (encoding) {
+            case "br" -> new BrotliInputStream(in);
+            case "gzip", "x-gzip" -> new GZIPInputStream(in, 64 * 1024);
+            case "deflate" -> new InflaterInputStream(in);
+            default -> in;
+        };
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.cs2bot.utils;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Canonical market names, interned to small dense int ids.
+ * <p>
+ * Normalization (the "?" → "★" encoding fix and the ★ prefix for knives and gloves) runs once
+ * per distinct spelling; after that a spelling resolves to its id with one hash lookup. Ids
+ * index straight into {@link PriceSnapshot}, so hot-path price reads never re-normalize.
+ */
+public final class MarketNames {
+
+    /** Returned by {@link #find} for names that have never been interned. */
+    public static final int UNKNOWN = -1;
+
+    /** Raw spellings are user/feed input; past this the spelling cache starts over. */
+    private static final int MAX_SPELLINGS = 200_000;
+
+    private static final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<String, Integer> spellings = new ConcurrentHashMap<>();
+    private static volatile String[] names = new String[1024];
+    private static int count;
+
+    private MarketNames() {}
+
+    /** Id for {@code raw}, interning its canonical form if needed. */
+    public static int id(String raw) {
+        if (raw == null) return UNKNOWN;
+        Integer id = spellings.get(raw);
+        if (id != null) return id;
+
+        String canonical = normalize(raw);
+        if (canonical.isEmpty()) return UNKNOWN;
+        id = ids.get(canonical);
+        if (id == null) id = intern(canonical);
+        remember(raw, id);
+        return id;
+    }
+
+    /** Id for {@code raw} without interning; {@link #UNKNOWN} if the name was never seen. */
+    public static int find(String raw) {
+        if (raw == null) return UNKNOWN;
+        Integer id = spellings.get(raw);
+        if (id != null) return id;
+
+        id = ids.get(normalize(raw));
+        if (id == null) return UNKNOWN;
+        remember(raw, id);
+        return id;
+    }
+
+    /** Canonical name for an id from {@link #id}. */
+    public static String name(int id) {
+        String[] n = names;
+        return id >= 0 && id < n.length ? n[id] : null;
+    }
+
+    /**
+     * Canonical spelling of {@code raw}, for lookups. Never interns: lookups take user input, and
+     * only feed ingest ({@link #id}) may grow the table. Names never interned are normalized on each call.
+     */
+    public static String canonical(String raw) {
+        if (raw == null) return "";
+        int id = find(raw);
+        return id == UNKNOWN ? normalize(raw) : name(id);
+    }
+
+    /** Number of interned names; every id is below this. */
+    public static int size() {
+        synchronized (MarketNames.class) {
+            return count;
+        }
+    }
+
+    /** Fixes the "?" that some feeds and seeds put where "★" belongs. */
+    public static String fixEncoding(String name) {
+        if (name == null) return "";
+        String n = name.trim();
+        if (n.startsWith("? ")) return "★ " + n.substring(2);
+        if (n.startsWith("?")) return "★ " + n.substring(1).trim();
+        return n;
+    }
+
+    /** Full canonicalization: the encoding fix plus the ★ prefix knives and gloves carry on the market. */
+    static String normalize(String raw) {
+        String n = fixEncoding(raw);
+        if ((n.contains("Gloves") || n.contains("Knife") || n.contains("Hand Wraps")) && !n.startsWith("★ ")) {
+            n = "★ " + n;
+        }
+        return n;
+    }
+
+    private static synchronized int intern(String canonical) {
+        Integer existing = ids.get(canonical);
+        if (existing != null) return existing;
+
+        int id = count++;
+        String[] n = names;
+        if (id >= n.length) n = Arrays.copyOf(n, n.length * 2);
+        n[id] = canonical;
+        names = n;
+        ids.put(canonical, id);
+        return id;
+    }
+
+    private static void remember(String raw, int id) {
+        if (spellings.size() >= MAX_SPELLINGS) spellings.clear();
+        spellings.put(raw, id);
+    }
+}
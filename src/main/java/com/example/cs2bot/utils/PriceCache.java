@@ -0,0 +1,262 @@
+package com.example.cs2bot.utils;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.ReplaceOptions;
+import org.bson.Document;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The one price lookup API. Tiers, fastest first:
+ * <ol>
+ *   <li>the Skinport {@link PriceSnapshot} (whole catalogue, replaced each refresh)</li>
+ *   <li>L1: a size-bounded, access-ordered in-process map with TTL and refresh-ahead</li>
+ *   <li>L2: the {@code prices} collection, entries older than {@link #L2_TTL} count as misses</li>
+ *   <li>Steam, hedged with CSFloat, fetched on a full miss</li>
+ * </ol>
+ * Misses go through {@link PriceChain#DEFAULT}, so a lookup answers within its latency budget
+ * even when an upstream hangs. Concurrent misses for the same name share one load.
+ */
+public final class PriceCache {
+
+    private static final int L1_MAX_ENTRIES = 20_000;
+    private static final Duration L1_TTL = Duration.ofMinutes(30);
+    /** L1 entries older than this are served and reloaded in the background. */
+    private static final Duration L1_REFRESH_AFTER = Duration.ofMinutes(24);
+    static final Duration L2_TTL = Duration.ofHours(24);
+
+    private record Entry(double price, long loadedAt) {}
+
+    /** Access-ordered LinkedHashMap = LRU; the lock is held only for the map operation itself. */
+    private static final Map<String, Entry> l1 = new LinkedHashMap<>(1024, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            if (size() <= L1_MAX_ENTRIES) return false;
+            evictions.increment();
+            return true;
+        }
+    };
+
+    private static final Map<String, CompletableFuture<Double>> inFlight = new ConcurrentHashMap<>();
+
+    private static final LongAdder snapshotHits = new LongAdder();
+    private static final LongAdder l1Hits = new LongAdder();
+    private static final LongAdder l1Misses = new LongAdder();
+    private static final LongAdder l2Hits = new LongAdder();
+    private static final LongAdder l2Misses = new LongAdder();
+    private static final LongAdder loads = new LongAdder();
+    private static final LongAdder loadFailures = new LongAdder();
+    private static final LongAdder coalesced = new LongAdder();
+    private static final LongAdder refreshAhead = new LongAdder();
+    private static final LongAdder evictions = new LongAdder();
+    private static final LongAdder backgroundDropped = new LongAdder();
+
+    /** Names waiting for a background Steam fetch; the set dedupes the queue. */
+    private static final BlockingQueue<String> backgroundQueue = new LinkedBlockingQueue<>(10_000);
+    private static final Set<String> queuedNames = ConcurrentHashMap.newKeySet();
+
+    static {
+        Thread t = new Thread(PriceCache::runBackgroundFetches, "price-background-fetch");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    private PriceCache() {}
+
+    /**
+     * Price in EUR for an already-normalized market name, or 0 if no tier knows it.
+     * Blocks on a full miss, but never longer than {@link PriceChain#DEFAULT_BUDGET}.
+     */
+    public static double get(String name) {
+        if (name == null || name.isBlank()) return 0.0;
+
+        double fast = getIfPresent(name);
+        if (fast > 0) return fast;
+
+        try {
+            return load(name).join();
+        } catch (CompletionException e) {
+            return 0.0;
+        }
+    }
+
+    /** Same tiers as {@link #get}, but never blocks the caller. */
+    public static CompletableFuture<Double> getAsync(String name) {
+        if (name == null || name.isBlank()) return CompletableFuture.completedFuture(0.0);
+        double fast = getIfPresent(name);
+        return fast > 0 ? CompletableFuture.completedFuture(fast) : load(name);
+    }
+
+    /**
+     * Batch lookup for inventories and trades. Answers from the snapshot and L1, then resolves
+     * the remaining names with a single {@code $in} query on L2. Names that are still unknown
+     * (or only have an expired L2 price) are queued for a background Steam fetch instead of
+     * blocking the caller. They are absent from the result, or carry their stale price.
+     */
+    public static Map<String, Double> getPrices(Collection<String> names) {
+        Map<String, Double> result = new HashMap<>(names.size() * 2);
+        Set<String> misses = new HashSet<>();
+
+        for (String name : names) {
+            if (name == null || name.isBlank() || result.containsKey(name)) continue;
+            double fast = getIfPresent(name);
+            if (fast > 0) result.put(name, fast);
+            else misses.add(name);
+        }
+        if (misses.isEmpty()) return result;
+
+        MongoCollection<Document> prices = PriceUpdater.priceCollection();
+        if (prices != null) {
+            long now = System.currentTimeMillis();
+            for (Document d : prices.find(Filters.in("_id", misses))) {
+                String name = d.getString("_id");
+                if (!(d.get("price") instanceof Number n) || n.doubleValue() <= 0) continue;
+
+                result.put(name, n.doubleValue());
+                Date updated = d.getDate("updated");
+                if (updated != null && now - updated.getTime() < L2_TTL.toMillis()) {
+                    l2Hits.increment();
+                    putL1(name, n.doubleValue());
+                    misses.remove(name);
+                }
+            }
+        }
+
+        l2Misses.add(misses.size());
+        misses.forEach(PriceCache::enqueueBackgroundFetch);
+        return result;
+    }
+
+    /** Queues a Steam fetch for {@code name}. Duplicates and overflow beyond the queue bound are dropped. */
+    public static void enqueueBackgroundFetch(String name) {
+        if (queuedNames.add(name) && !backgroundQueue.offer(name)) {
+            queuedNames.remove(name);
+            backgroundDropped.increment();
+        }
+    }
+
+    private static void runBackgroundFetches() {
+        while (true) {
+            String name;
+            try {
+                name = backgroundQueue.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            try {
+                if (getIfPresent(name) > 0) continue;
+                double steam = PriceUpdater.steamPriceOverview(name);
+                if (steam > 0) put(name, steam);
+            } catch (Exception e) {
+                loadFailures.increment();
+            } finally {
+                queuedNames.remove(name);
+            }
+        }
+    }
+
+    /** Snapshot and L1 only; 0 on a miss. Never touches MongoDB or HTTP. */
+    public static double getIfPresent(String name) {
+        double sp = PriceUpdater.snapshot().get(name, 0.0);
+        if (sp > 0) {
+            snapshotHits.increment();
+            return sp;
+        }
+
+        Entry e;
+        synchronized (l1) {
+            e = l1.get(name);
+        }
+        long now = System.currentTimeMillis();
+        if (e != null && now - e.loadedAt() < L1_TTL.toMillis()) {
+            l1Hits.increment();
+            if (now - e.loadedAt() > L1_REFRESH_AFTER.toMillis() && !inFlight.containsKey(name)) {
+                refreshAhead.increment();
+                load(name);
+            }
+            return e.price();
+        }
+        l1Misses.increment();
+        return 0.0;
+    }
+
+    /** Stores a freshly fetched price in L1 and L2. */
+    public static void put(String name, double price) {
+        if (name == null || name.isBlank() || price <= 0) return;
+        putL1(name, price);
+
+        MongoCollection<Document> prices = PriceUpdater.priceCollection();
+        if (prices == null) return;
+        try {
+            Document doc = new Document("_id", name)
+                    .append("price", price)
+                    .append("updated", new Date());
+            prices.replaceOne(Filters.eq("_id", name), doc, new ReplaceOptions().upsert(true));
+        } catch (Exception e) {
+            System.err.println("[PriceCache] ⚠️ Mongo save failed for " + name + ": " + e.getMessage());
+        }
+    }
+
+    /** Cache counters plus the chain's per-provider counters and breaker states. */
+    public static String stats() {
+        int size;
+        synchronized (l1) {
+            size = l1.size();
+        }
+        return String.format("snapshot hits=%d | L1 size=%d hits=%d misses=%d evictions=%d refresh-ahead=%d"
+                        + " | L2 hits=%d misses=%d | loads=%d failed=%d coalesced=%d | background queued=%d dropped=%d",
+                snapshotHits.sum(), size, l1Hits.sum(), l1Misses.sum(), evictions.sum(), refreshAhead.sum(),
+                l2Hits.sum(), l2Misses.sum(), loads.sum(), loadFailures.sum(), coalesced.sum(),
+                backgroundQueue.size(), backgroundDropped.sum()) + " | chain " + PriceChain.DEFAULT.stats();
+    }
+
+    /** Starts (or joins) the chain lookup for {@code name}. */
+    private static CompletableFuture<Double> load(String name) {
+        CompletableFuture<Double> mine = new CompletableFuture<>();
+        CompletableFuture<Double> existing = inFlight.putIfAbsent(name, mine);
+        if (existing != null) {
+            coalesced.increment();
+            return existing;
+        }
+
+        loads.increment();
+        PriceChain.DEFAULT.resolve(name).whenComplete((quote, err) -> {
+            inFlight.remove(name, mine);
+            if (err != null) {
+                loadFailures.increment();
+                mine.completeExceptionally(err);
+            } else {
+                mine.complete(remember(name, quote));
+            }
+        });
+        return mine;
+    }
+
+    /** Files a chain answer into the tiers it didn't come from. Runs on whatever thread completed the chain. */
+    private static double remember(String name, PriceProvider.Quote quote) {
+        boolean fromL2 = PriceProviders.MONGO.name().equals(quote.source());
+        if (fromL2 && quote.fresh()) l2Hits.increment();
+        else l2Misses.increment();
+
+        if (!quote.known()) return 0.0;
+        if (quote.fresh() && !fromL2 && !PriceProviders.SNAPSHOT.name().equals(quote.source())) {
+            // Fetched from upstream: the L2 write blocks, so keep it off the caller's (HTTP client) thread
+            putL1(name, quote.price());
+            CompletableFuture.runAsync(() -> put(name, quote.price()), PriceProviders.io());
+        } else if (!PriceProviders.SNAPSHOT.name().equals(quote.source())) {
+            // L2 hit, or an expired price that beats no price
+            putL1(name, quote.price());
+        }
+        return quote.price();
+    }
+
+    private static void putL1(String name, double price) {
+        synchronized (l1) {
+            l1.put(name, new Entry(price, System.currentTimeMillis()));
+        }
+    }
+}
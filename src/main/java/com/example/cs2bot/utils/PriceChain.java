@@ -0,0 +1,192 @@
+package com.example.cs2bot.utils;
+
+import com.example.cs2bot.utils.PriceProvider.Quote;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Asks {@link PriceProvider}s in order until one has a fresh price, and always answers within
+ * {@link #budget}: with that price, with the best stale price seen, or with {@link Quote#UNKNOWN}.
+ * <p>
+ * Each provider gets its own timeout and {@link CircuitBreaker} (the shared {@link Endpoint}
+ * breaker for upstream providers); an open breaker skips the provider without calling it.
+ * A provider with a {@link PriceProvider#hedgeAfter() hedge delay} that hasn't answered by then
+ * gets the next provider started alongside it, and whichever brings a fresh price first wins. Nothing here blocks a thread.
+ */
+public final class PriceChain {
+
+    public static final Duration DEFAULT_BUDGET = Duration.ofSeconds(4);
+    private static final int BREAKER_FAILURES = 5;
+
+    public static final PriceChain DEFAULT = new PriceChain(List.of(
+            PriceProviders.SNAPSHOT, PriceProviders.MONGO, PriceProviders.STEAM, PriceProviders.CSFLOAT),
+            DEFAULT_BUDGET);
+
+    private static final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "price-chain-timer");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /** Per-provider counters, same index as {@link #providers}. */
+    private static final class Counters {
+        final LongAdder answered = new LongAdder();
+        final LongAdder failed = new LongAdder();
+        final LongAdder timedOut = new LongAdder();
+        final LongAdder skipped = new LongAdder();
+        final LongAdder wins = new LongAdder();
+    }
+
+    private final List<PriceProvider> providers;
+    /** Breakers the chain owns, for providers without an {@link Endpoint}; null entries otherwise. */
+    private final List<CircuitBreaker> breakers = new ArrayList<>();
+    private final List<Counters> counters = new ArrayList<>();
+    private final Duration budget;
+
+    private final LongAdder resolved = new LongAdder();
+    private final LongAdder unknown = new LongAdder();
+    private final LongAdder staleAnswers = new LongAdder();
+    private final LongAdder hedged = new LongAdder();
+    private final LongAdder overBudget = new LongAdder();
+
+    public PriceChain(List<PriceProvider> providers, Duration budget) {
+        this.providers = List.copyOf(providers);
+        this.budget = budget;
+        for (PriceProvider p : this.providers) {
+            breakers.add(p.endpoint() != null ? null
+                    : new CircuitBreaker(p.name(), BREAKER_FAILURES, new Backoff(Duration.ofSeconds(5), Duration.ofMinutes(2))));
+            counters.add(new Counters());
+        }
+    }
+
+    /** Price for a canonical market name. The future always completes normally, within the budget. */
+    public CompletableFuture<Quote> resolve(String canonicalName) {
+        Attempt a = new Attempt(canonicalName);
+        a.launch();
+        if (!a.result.isDone()) {
+            ScheduledFuture<?> deadline = timer.schedule(a::expire, budget.toMillis(), TimeUnit.MILLISECONDS);
+            a.result.whenComplete((q, e) -> deadline.cancel(false));
+        }
+        return a.result;
+    }
+
+    public String stats() {
+        StringBuilder sb = new StringBuilder(String.format(
+                "resolved=%d unknown=%d stale=%d hedged=%d over-budget=%d",
+                resolved.sum(), unknown.sum(), staleAnswers.sum(), hedged.sum(), overBudget.sum()));
+        for (int i = 0; i < providers.size(); i++) {
+            Counters c = counters.get(i);
+            sb.append(String.format(" | %s: answered=%d wins=%d failed=%d timed-out=%d skipped=%d breaker=%s",
+                    providers.get(i).name(), c.answered.sum(), c.wins.sum(), c.failed.sum(),
+                    c.timedOut.sum(), c.skipped.sum(), breaker(i).state()));
+        }
+        return sb.toString();
+    }
+
+    private CircuitBreaker breaker(int i) {
+        CircuitBreaker own = breakers.get(i);
+        return own != null ? own : providers.get(i).endpoint().breaker();
+    }
+
+    /** One lookup walking the chain. */
+    private final class Attempt {
+        final String name;
+        final CompletableFuture<Quote> result = new CompletableFuture<>();
+        final AtomicInteger next = new AtomicInteger();
+        final AtomicInteger outstanding = new AtomicInteger();
+        final AtomicReference<Quote> stale = new AtomicReference<>(Quote.UNKNOWN);
+
+        Attempt(String name) {
+            this.name = name;
+        }
+
+        /** Starts the next provider whose breaker lets it through; answers if none are left. */
+        void launch() {
+            while (!result.isDone()) {
+                int i = next.getAndIncrement();
+                if (i >= providers.size()) {
+                    if (outstanding.get() == 0) finish(stale.get(), -1);
+                    return;
+                }
+
+                PriceProvider p = providers.get(i);
+                CircuitBreaker own = breakers.get(i);
+                if (own != null && !own.allow()) {
+                    counters.get(i).skipped.increment();
+                    continue;
+                }
+
+                outstanding.incrementAndGet();
+                CompletableFuture<Quote> call;
+                try {
+                    call = p.fetch(name);
+                } catch (RuntimeException e) {
+                    call = CompletableFuture.failedFuture(e);
+                }
+                call.orTimeout(p.timeout().toMillis(), TimeUnit.MILLISECONDS)
+                        .whenComplete((q, err) -> onAnswer(i, q, err));
+
+                Duration hedge = p.hedgeAfter();
+                if (hedge != null && !call.isDone() && i + 1 < providers.size()) {
+                    timer.schedule(() -> hedge(i), hedge.toMillis(), TimeUnit.MILLISECONDS);
+                }
+                return;
+            }
+        }
+
+        /** Provider {@code i} is still busy: start the one after it too, unless that already happened. */
+        void hedge(int i) {
+            if (result.isDone() || next.get() != i + 1) return;
+            hedged.increment();
+            launch();
+        }
+
+        void onAnswer(int i, Quote q, Throwable err) {
+            CircuitBreaker own = breakers.get(i);
+            Counters c = counters.get(i);
+            if (err != null) {
+                Throwable cause = err instanceof CompletionException && err.getCause() != null ? err.getCause() : err;
+                if (cause instanceof TimeoutException) c.timedOut.increment();
+                else c.failed.increment();
+                if (own != null) own.onFailure();
+            } else if (q == PriceProviders.SKIPPED) {
+                c.skipped.increment();
+                if (own != null) own.onSkipped();
+            } else {
+                c.answered.increment();
+                if (own != null) own.onSuccess();
+            }
+            outstanding.decrementAndGet();
+
+            if (q != null && q.known()) {
+                if (q.fresh()) {
+                    finish(q, i);
+                    return;
+                }
+                // Tiers are ordered by trust, so keep the first stale price rather than the latest
+                stale.compareAndSet(Quote.UNKNOWN, q);
+            }
+            launch();
+        }
+
+        void expire() {
+            if (result.isDone()) return;
+            overBudget.increment();
+            finish(stale.get(), -1);
+        }
+
+        void finish(Quote q, int winner) {
+            if (!result.complete(q)) return;
+            resolved.increment();
+            if (winner >= 0) counters.get(winner).wins.increment();
+            else if (q.known()) staleAnswers.increment();
+            else unknown.increment();
+        }
+    }
+}
@@ -0,0 +1,325 @@
+package com.example.cs2bot.utils;
+
+import com.example.cs2bot.db.MongoUtil;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.*;
+import org.bson.Document;
+
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Price history in {@code price_history}, one small document per item per UTC day:
+ * <pre>
+ * { _id: "AK-47 | Redline (Field-Tested)@2026-10-17", name, day,
+ *   res: "raw" | "hourly" | "daily",
+ *   o, c, lo, hi, n, sum        // open, close, low, high, sample count, sum: always present
+ *   t: [minute of day, ...],    // raw: one entry per recorded change...
+ *   p: [cents, ...],            // ...and the price at that minute
+ *   h: [24 × cents] }           // hourly: average per hour, -1 before the first sample
+ * </pre>
+ * Prices are int cents, so the arrays pack as int32. Each refresh appends only the items whose
+ * price changed since the last sample (every item gets one opening sample per day). A price
+ * holds until the next sample, so hourly averages carry the last price into hours without one.
+ * <p>
+ * {@link #downsample()} turns raw days older than {@link #RAW_DAYS} into hourly ones and hourly
+ * days older than {@link #HOURLY_DAYS} into the daily summary alone. A range read is one
+ * {@code _id} range scan, so 30 days of one item is 30 documents of a few hundred bytes each.
+ */
+public final class PriceHistory {
+
+    public enum Resolution {
+        RAW("raw"), HOURLY("hourly"), DAILY("daily");
+
+        final String field;
+
+        Resolution(String field) {
+            this.field = field;
+        }
+    }
+
+    /** One point of a series: epoch millis and price in EUR. */
+    public record Point(long time, double price) {}
+
+    static final int RAW_DAYS = 2;
+    static final int HOURLY_DAYS = 30;
+
+    private static final int BATCH = 1000;
+    private static final int DOWNSAMPLE_BATCH = 500;
+    private static final int MAX_BATCHES_PER_RUN = 40;
+    private static final long INTERVAL_MINUTES = 60;
+    private static final String SEPARATOR = "@";
+
+    private static final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "price-history");
+        t.setDaemon(true);
+        return t;
+    });
+
+    // Last recorded cents per MarketNames id for lastDay; only touched by the refresh worker
+    private static int[] lastCents = new int[0];
+    private static LocalDate lastDay;
+
+    private PriceHistory() {}
+
+    public static void start() {
+        scheduler.scheduleWithFixedDelay(PriceHistory::downsampleSafely, 5, INTERVAL_MINUTES, TimeUnit.MINUTES);
+        System.out.println("📈 Price history downsampling scheduled (every " + INTERVAL_MINUTES + "min)");
+    }
+
+    /**
+     * Appends a sample for every item in {@code book} whose price changed since the last call.
+     * Called by the refresh after it publishes a snapshot. Returns the number of samples written.
+     */
+    static int record(PriceSnapshot book, Date at) {
+        MongoCollection<Document> history = collection();
+        if (history == null || book.isEmpty()) return 0;
+
+        LocalDate day = LocalDate.ofInstant(at.toInstant(), ZoneOffset.UTC);
+        if (!day.equals(lastDay)) {
+            lastDay = day;
+            lastCents = new int[0];
+        }
+        int names = MarketNames.size();
+        if (lastCents.length < names) {
+            int from = lastCents.length;
+            lastCents = Arrays.copyOf(lastCents, names);
+            Arrays.fill(lastCents, from, names, -1);
+        }
+
+        Date dayStart = Date.from(day.atStartOfDay(ZoneOffset.UTC).toInstant());
+        int minute = (int) Duration.between(dayStart.toInstant(), at.toInstant()).toMinutes();
+        String suffix = SEPARATOR + day;
+
+        List<WriteModel<Document>> batch = new ArrayList<>(BATCH);
+        int[] ids = new int[BATCH];
+        int written = 0;
+        for (int id = 0; id < names; id++) {
+            int cents = toCents(book.get(id, 0.0));
+            if (cents <= 0 || lastCents[id] == cents) continue;
+
+            String name = MarketNames.name(id);
+            ids[batch.size()] = id;
+            batch.add(new UpdateOneModel<>(Filters.eq("_id", name + suffix), Updates.combine(
+                    Updates.setOnInsert("name", name),
+                    Updates.setOnInsert("day", dayStart),
+                    Updates.setOnInsert("res", Resolution.RAW.field),
+                    Updates.setOnInsert("o", cents),
+                    Updates.set("c", cents),
+                    Updates.min("lo", cents),
+                    Updates.max("hi", cents),
+                    Updates.inc("n", 1),
+                    Updates.inc("sum", (long) cents),
+                    Updates.push("t", minute),
+                    Updates.push("p", cents)
+            ), new UpdateOptions().upsert(true)));
+            lastCents[id] = cents;
+
+            if (batch.size() == BATCH) {
+                written += write(history, batch, ids);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) written += write(history, batch, ids);
+
+        System.out.printf("[PriceHistory] 📈 Recorded %d price change(s) for %s%n", written, day);
+        return written;
+    }
+
+    /** Price series for {@code name} between {@code from} and {@code to}, oldest first, at most {@code resolution} fine. */
+    public static List<Point> range(String name, Instant from, Instant to, Resolution resolution) {
+        MongoCollection<Document> history = collection();
+        // Only names from the feed have history, and a lookup must not intern user input
+        String canonical = MarketNames.name(MarketNames.find(name));
+        if (history == null || canonical == null || from.isAfter(to)) return List.of();
+
+        List<String> fields = new ArrayList<>(List.of("day", "res", "n", "sum"));
+        // Raw days are turned into hourly points here, so HOURLY still needs their arrays
+        if (resolution != Resolution.DAILY) fields.addAll(List.of("h", "t", "p"));
+
+        List<Point> points = new ArrayList<>();
+        for (Document d : history.find(Filters.and(
+                        Filters.gte("_id", key(canonical, from)),
+                        Filters.lte("_id", key(canonical, to))))
+                .projection(Projections.include(fields))
+                .sort(Sorts.ascending("_id"))) {
+            for (Point p : points(d, resolution)) {
+                if (p.time() >= from.toEpochMilli() && p.time() <= to.toEpochMilli()) points.add(p);
+            }
+        }
+        return points;
+    }
+
+    /** The last 30 days at hourly resolution where available. */
+    public static List<Point> lastMonth(String name) {
+        Instant now = Instant.now();
+        return range(name, now.minus(Duration.ofDays(30)), now, Resolution.HOURLY);
+    }
+
+    /**
+     * Price of {@code name} at {@code at} from the finest data kept for that day: the last sample
+     * at or before it, else the day's first. 0 if the day has no record.
+     */
+    public static double priceAt(String name, Instant at) {
+        MongoCollection<Document> history = collection();
+        String canonical = MarketNames.name(MarketNames.find(name));
+        if (history == null || canonical == null) return 0.0;
+
+        Document d = history.find(Filters.eq("_id", key(canonical, at))).first();
+        if (d == null) return 0.0;
+        List<Point> day = points(d, Resolution.RAW);
+        Point best = day.isEmpty() ? null : day.get(0);
+        for (Point p : day) {
+            if (p.time() > at.toEpochMilli()) break;
+            best = p;
+        }
+        return best == null ? 0.0 : best.price();
+    }
+
+    /**
+     * One bounded pass: raw days older than {@link #RAW_DAYS} become hourly, hourly days older
+     * than {@link #HOURLY_DAYS} keep only the daily summary. Safe to re-run; every write is
+     * conditional on the document still being at the resolution it was read at.
+     */
+    static void downsample() {
+        MongoCollection<Document> history = collection();
+        if (history == null) return;
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        Date rawCutoff = Date.from(today.minusDays(RAW_DAYS).atStartOfDay(ZoneOffset.UTC).toInstant());
+        Date hourlyCutoff = Date.from(today.minusDays(HOURLY_DAYS).atStartOfDay(ZoneOffset.UTC).toInstant());
+
+        int toHourly = 0;
+        for (int b = 0; b < MAX_BATCHES_PER_RUN; b++) {
+            List<Document> days = history.find(Filters.and(
+                            Filters.eq("res", Resolution.RAW.field),
+                            Filters.lt("day", rawCutoff)))
+                    .projection(Projections.include("t", "p"))
+                    .limit(DOWNSAMPLE_BATCH)
+                    .into(new ArrayList<>());
+            if (days.isEmpty()) break;
+
+            List<WriteModel<Document>> models = new ArrayList<>(days.size());
+            for (Document d : days) {
+                models.add(new UpdateOneModel<>(
+                        Filters.and(Filters.eq("_id", d.get("_id")), Filters.eq("res", Resolution.RAW.field)),
+                        Updates.combine(
+                                Updates.set("h", toList(hourly(ints(d, "t"), ints(d, "p")))),
+                                Updates.set("res", Resolution.HOURLY.field),
+                                Updates.unset("t"),
+                                Updates.unset("p"))));
+            }
+            toHourly += history.bulkWrite(models, new BulkWriteOptions().ordered(false)).getModifiedCount();
+            if (days.size() < DOWNSAMPLE_BATCH) break;
+        }
+
+        long toDaily = history.updateMany(
+                Filters.and(Filters.eq("res", Resolution.HOURLY.field), Filters.lt("day", hourlyCutoff)),
+                Updates.combine(Updates.set("res", Resolution.DAILY.field), Updates.unset("h"))).getModifiedCount();
+
+        if (toHourly > 0 || toDaily > 0) {
+            System.out.printf("[PriceHistory] 🗜️ Downsampled %d day(s) to hourly, %d to daily%n", toHourly, toDaily);
+        }
+    }
+
+    private static void downsampleSafely() {
+        try {
+            downsample();
+        } catch (Exception e) {
+            System.err.println("[PriceHistory] ⚠️ Downsampling failed, retrying next run: " + e.getMessage());
+        }
+    }
+
+    /** Points for one day document at no finer than {@code resolution}. */
+    private static List<Point> points(Document d, Resolution resolution) {
+        long dayStart = d.getDate("day").getTime();
+        String res = d.getString("res");
+
+        if (Resolution.RAW.field.equals(res) && resolution != Resolution.DAILY) {
+            int[] t = ints(d, "t"), p = ints(d, "p");
+            if (resolution == Resolution.HOURLY) return hourlyPoints(dayStart, hourly(t, p));
+
+            List<Point> out = new ArrayList<>(t.length);
+            for (int i = 0; i < t.length; i++) out.add(new Point(dayStart + t[i] * 60_000L, p[i] / 100.0));
+            return out;
+        }
+        if (Resolution.HOURLY.field.equals(res) && resolution != Resolution.DAILY) {
+            return hourlyPoints(dayStart, ints(d, "h"));
+        }
+
+        // Daily: the sample-weighted average, placed at noon
+        int n = d.getInteger("n", 0);
+        if (n == 0 || !(d.get("sum") instanceof Number sum)) return List.of();
+        return List.of(new Point(dayStart + 12 * 3_600_000L, sum.longValue() / (double) n / 100.0));
+    }
+
+    private static List<Point> hourlyPoints(long dayStart, int[] hours) {
+        List<Point> out = new ArrayList<>(24);
+        for (int h = 0; h < hours.length; h++) {
+            if (hours[h] > 0) out.add(new Point(dayStart + h * 3_600_000L + 1_800_000L, hours[h] / 100.0));
+        }
+        return out;
+    }
+
+    /**
+     * Average cents per hour from change samples. An hour without samples carries the last
+     * price forward; hours before the first sample are -1.
+     */
+    static int[] hourly(int[] minutes, int[] cents) {
+        int[] out = new int[24];
+        Arrays.fill(out, -1);
+        int i = 0, last = -1;
+        for (int h = 0; h < 24; h++) {
+            long sum = 0;
+            int n = 0;
+            while (i < minutes.length && minutes[i] < (h + 1) * 60) {
+                sum += cents[i];
+                last = cents[i];
+                n++;
+                i++;
+            }
+            out[h] = n > 0 ? (int) Math.round((double) sum / n) : last;
+        }
+        return out;
+    }
+
+    private static int write(MongoCollection<Document> history, List<WriteModel<Document>> batch, int[] ids) {
+        try {
+            history.bulkWrite(batch, new BulkWriteOptions().ordered(false));
+            return batch.size();
+        } catch (Exception e) {
+            // Forget what this batch recorded so the next refresh writes those samples again
+            for (int i = 0; i < batch.size(); i++) lastCents[ids[i]] = -1;
+            System.err.println("[PriceHistory] ⚠️ History write failed for " + batch.size() + " item(s): " + e.getMessage());
+            return 0;
+        }
+    }
+
+    private static String key(String canonical, Instant at) {
+        return canonical + SEPARATOR + LocalDate.ofInstant(at, ZoneOffset.UTC);
+    }
+
+    private static int toCents(double price) {
+        return price > 0 ? (int) Math.round(price * 100) : 0;
+    }
+
+    private static int[] ints(Document d, String field) {
+        List<?> list = d.getList(field, Object.class);
+        if (list == null) return new int[0];
+        int[] out = new int[list.size()];
+        for (int i = 0; i < out.length; i++) out[i] = list.get(i) instanceof Number n ? n.intValue() : -1;
+        return out;
+    }
+
+    private static List<Integer> toList(int[] values) {
+        List<Integer> out = new ArrayList<>(values.length);
+        for (int v : values) out.add(v);
+        return out;
+    }
+
+    private static MongoCollection<Document> collection() {
+        return MongoUtil.isConnected() ? MongoUtil.priceHistory() : null;
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.cs2bot.utils;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * One source of prices in {@link PriceChain}. Implementations must not block the calling
+ * thread: local tiers answer with a completed future, remote ones complete from the
+ * HTTP client's threads. "Doesn't know this item" is {@link Quote#UNKNOWN}, not an error;
+ * exceptions and timeouts count against the provider's {@link CircuitBreaker}.
+ */
+public interface PriceProvider {
+
+    /** A price from one provider. {@code fresh=false} marks an expired cache entry, better than nothing. */
+    record Quote(double price, boolean fresh, String source) {
+        public static final Quote UNKNOWN = new Quote(0.0, false, "none");
+
+        public boolean known() {
+            return price > 0;
+        }
+    }
+
+    String name();
+
+    /** Longest the chain waits for this provider before treating the call as failed. */
+    Duration timeout();
+
+    /** How long to wait before also asking the next provider; null to wait for the answer. */
+    default Duration hedgeAfter() {
+        return null;
+    }
+
+    /**
+     * The upstream this provider calls, or null for local tiers. Providers with an endpoint take
+     * their own permits and report their own outcomes to its breaker; the chain keeps a breaker
+     * only for the others.
+     */
+    default Endpoint endpoint() {
+        return null;
+    }
+
+    CompletableFuture<Quote> fetch(String canonicalName);
+}
@@ -0,0 +1,203 @@
+package com.example.cs2bot.utils;
+
+import com.example.cs2bot.utils.PriceProvider.Quote;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import org.bson.Document;
+
+import java.io.InputStream;
+import java.net.URI;
+import java.time.Duration;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * The built-in {@link PriceProvider}s, cheapest first: the Skinport snapshot, the {@code prices}
+ * collection, the Steam price overview and CSFloat listings.
+ * <p>
+ * The HTTP providers go through {@link HttpFetcher#getAsync} and never wait for a permit from
+ * their {@link Endpoint}: while its breaker is open or its limiter has no token they answer
+ * {@link #SKIPPED} at once, leaving the chain to move on to the next provider instead of
+ * spending the caller's latency budget in a queue.
+ */
+public final class PriceProviders {
+
+    /** "Didn't try" (breaker open or no rate-limit token). Not a failure, and tells the chain nothing about the item. */
+    public static final Quote SKIPPED = new Quote(0.0, false, "skipped");
+
+    public static final PriceProvider SNAPSHOT = new Snapshot();
+    public static final PriceProvider MONGO = new Mongo();
+    public static final PriceProvider STEAM = http(Endpoint.STEAM, HttpFetcher.SHARED,
+            Duration.ofSeconds(3), Duration.ofMillis(1200), PriceUpdater::steamOverviewUri,
+            name -> Map.of("User-Agent", "Mozilla/5.0 (CS2PriceBot)"), PriceUpdater::parseSteamOverview);
+    public static final PriceProvider CSFLOAT = http(Endpoint.CSFLOAT, HttpFetcher.SHARED,
+            Duration.ofSeconds(3), null, SteamMarketAPI::listingsUri,
+            name -> SteamMarketAPI.headers(), SteamMarketAPI::parseListingsEUR);
+
+    /** The sync Mongo driver blocks, so L2 reads (and L2 writes from {@link PriceCache}) run here. */
+    private static final ExecutorService io = Executors.newFixedThreadPool(4, new ThreadFactory() {
+        private final AtomicInteger n = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "price-io-" + n.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        }
+    });
+
+    private PriceProviders() {}
+
+    static Executor io() {
+        return io;
+    }
+
+    /**
+     * A provider doing one GET per lookup against {@code endpoint}. Public so the same code can be
+     * pointed at a local fake server: pass an {@link HttpFetcher} and a URI function for it.
+     */
+    public static PriceProvider http(Endpoint endpoint, HttpFetcher fetcher, Duration timeout, Duration hedgeAfter,
+                                     Function<String, URI> uri, Function<String, Map<String, String>> headers,
+                                     ToDoubleFunction<InputStream> parser) {
+        return new Http(endpoint, fetcher, timeout, hedgeAfter, uri, headers, parser);
+    }
+
+    private static final class Snapshot implements PriceProvider {
+        @Override
+        public String name() {
+            return "skinport";
+        }
+
+        @Override
+        public Duration timeout() {
+            return Duration.ofMillis(50);
+        }
+
+        @Override
+        public CompletableFuture<Quote> fetch(String marketName) {
+            double price = PriceUpdater.snapshot().get(marketName, 0.0);
+            return CompletableFuture.completedFuture(price > 0 ? new Quote(price, true, name()) : Quote.UNKNOWN);
+        }
+    }
+
+    /** L2: a price older than {@link PriceCache#L2_TTL} comes back as a stale quote. */
+    private static final class Mongo implements PriceProvider {
+        @Override
+        public String name() {
+            return "mongo";
+        }
+
+        @Override
+        public Duration timeout() {
+            return Duration.ofMillis(1500);
+        }
+
+        @Override
+        public Duration hedgeAfter() {
+            return Duration.ofMillis(500);
+        }
+
+        @Override
+        public CompletableFuture<Quote> fetch(String marketName) {
+            MongoCollection<Document> prices = PriceUpdater.priceCollection();
+            if (prices == null) return CompletableFuture.completedFuture(Quote.UNKNOWN);
+
+            return CompletableFuture.supplyAsync(() -> {
+                Document cached = prices.find(Filters.eq("_id", marketName)).first();
+                if (cached == null || !(cached.get("price") instanceof Number n) || n.doubleValue() <= 0) {
+                    return Quote.UNKNOWN;
+                }
+                Date updated = cached.getDate("updated");
+                boolean fresh = updated != null
+                        && System.currentTimeMillis() - updated.getTime() < PriceCache.L2_TTL.toMillis();
+                return new Quote(n.doubleValue(), fresh, name());
+            }, io);
+        }
+    }
+
+    /**
+     * 429 and 5xx are failures (the endpoint's breaker counts them, a 429 also pauses its
+     * limiter); any other non-200 means the upstream doesn't know the item.
+     */
+    private static final class Http implements PriceProvider {
+        private final Endpoint endpoint;
+        private final HttpFetcher fetcher;
+        private final Duration timeout;
+        private final Duration hedgeAfter;
+        private final Function<String, URI> uri;
+        private final Function<String, Map<String, String>> headers;
+        private final ToDoubleFunction<InputStream> parser;
+
+        Http(Endpoint endpoint, HttpFetcher fetcher, Duration timeout, Duration hedgeAfter,
+             Function<String, URI> uri, Function<String, Map<String, String>> headers,
+             ToDoubleFunction<InputStream> parser) {
+            this.endpoint = endpoint;
+            this.fetcher = fetcher;
+            this.timeout = timeout;
+            this.hedgeAfter = hedgeAfter;
+            this.uri = uri;
+            this.headers = headers;
+            this.parser = parser;
+        }
+
+        @Override
+        public String name() {
+            return endpoint.name();
+        }
+
+        @Override
+        public Duration timeout() {
+            return timeout;
+        }
+
+        @Override
+        public Duration hedgeAfter() {
+            return hedgeAfter;
+        }
+
+        @Override
+        public Endpoint endpoint() {
+            return endpoint;
+        }
+
+        @Override
+        public CompletableFuture<Quote> fetch(String marketName) {
+            if (!endpoint.tryPermit()) return CompletableFuture.completedFuture(SKIPPED);
+
+            CompletableFuture<HttpFetcher.Response> call;
+            try {
+                call = fetcher.getAsync(uri.apply(marketName), headers.apply(marketName), timeout);
+            } catch (RuntimeException e) {
+                // Still a permitted call: report it so a half-open trial slot is freed
+                endpoint.recordError(e);
+                return CompletableFuture.failedFuture(e);
+            }
+            return call.handle((res, err) -> {
+                        if (err != null) {
+                            endpoint.recordError(err);
+                            throw err instanceof CompletionException ce ? ce : new CompletionException(err);
+                        }
+                        int code = res.status();
+                        endpoint.record(code, res.headers().firstValue("Retry-After").orElse(null));
+                        if (code == 429 || code >= 500) {
+                            throw new CompletionException(new IllegalStateException(name() + " HTTP " + code));
+                        }
+                        if (code != 200) return Quote.UNKNOWN;
+
+                        // The upstream answered; a body we can't read is a data problem, not an outage
+                        try {
+                            double price = parser.applyAsDouble(res.body());
+                            return price > 0 ? new Quote(price, true, name()) : Quote.UNKNOWN;
+                        } catch (RuntimeException e) {
+                            System.err.println("[PriceChain] ⚠️ " + name() + " returned an unreadable price for "
+                                    + marketName + ": " + e.getMessage());
+                            return Quote.UNKNOWN;
+                        }
+                    });
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.example.cs2bot.utils;
+
+import java.time.Duration;
+import java.util.StringJoiner;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The one place Skinport price refreshes run. A scheduler triggers a refresh every
+ * {@link #INTERVAL}, and {@code /refreshprices run} can trigger one by hand. Both go
+ * through {@link #trigger()}, which is single-flight: a trigger that arrives while a
+ * run is in progress gets that run's future instead of starting another one.
+ */
+public final class PriceRefreshService {
+
+    public static final Duration INTERVAL = Duration.ofMinutes(10);
+
+    /** Live progress of a run, written by the refresh and read by status(). */
+    public static final class Progress {
+        final long startedAt = System.currentTimeMillis();
+        final AtomicInteger processed = new AtomicInteger();
+        volatile int total;
+
+        public void setTotal(int total) {
+            this.total = total;
+        }
+
+        public void advance() {
+            processed.incrementAndGet();
+        }
+
+        public int processed() {
+            return processed.get();
+        }
+
+        public int total() {
+            return total;
+        }
+    }
+
+    private static final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "price-refresh-scheduler");
+        t.setDaemon(true);
+        return t;
+    });
+    private static final ExecutorService worker = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "price-refresh");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private static final AtomicReference<CompletableFuture<Integer>> inFlight = new AtomicReference<>();
+    private static volatile Progress current;
+    private static volatile long lastAttemptAt;
+    private static volatile long lastCompletedAt;
+    private static volatile long lastDurationMs;
+    private static volatile int lastCount;
+    private static volatile String lastError;
+
+    private PriceRefreshService() {}
+
+    public static void start() {
+        scheduler.scheduleWithFixedDelay(PriceRefreshService::trigger, 0, INTERVAL.toMillis(), TimeUnit.MILLISECONDS);
+        System.out.println("🌀 Price refresh scheduled every " + INTERVAL.toMinutes() + " min");
+    }
+
+    /**
+     * Starts a refresh, or joins the one already running.
+     * The future completes with the number of prices loaded.
+     */
+    public static CompletableFuture<Integer> trigger() {
+        CompletableFuture<Integer> mine = new CompletableFuture<>();
+        CompletableFuture<Integer> existing = inFlight.compareAndExchange(null, mine);
+        if (existing != null) return existing;
+
+        worker.execute(() -> run(mine));
+        return mine;
+    }
+
+    public static boolean isRunning() {
+        return inFlight.get() != null;
+    }
+
+    /** Triggers a refresh in the background if the last attempt is older than the interval. Never blocks. */
+    public static void refreshIfStale() {
+        if (System.currentTimeMillis() - lastAttemptAt > INTERVAL.toMillis() && !isRunning()) trigger();
+    }
+
+    /** Human-readable status for {@code /refreshprices status}. */
+    public static String status() {
+        StringBuilder sb = new StringBuilder();
+        Progress p = current;
+
+        if (isRunning() && p != null) {
+            int done = p.processed(), total = p.total();
+            long elapsed = System.currentTimeMillis() - p.startedAt;
+            sb.append("🔄 Refresh running: ").append(done).append('/').append(total);
+            if (total > 0) sb.append(String.format(" (%.0f%%)", done * 100.0 / total));
+            if (done > 0 && total > done) {
+                long etaMs = elapsed * (total - done) / done;
+                sb.append(" — ETA ").append(formatDuration(etaMs));
+            }
+            sb.append('\n');
+        } else {
+            sb.append("💤 No refresh running\n");
+        }
+
+        if (lastCompletedAt > 0) {
+            sb.append("✅ Last completed <t:").append(lastCompletedAt / 1000).append(":R> — ")
+                    .append(lastCount).append(" prices in ").append(formatDuration(lastDurationMs)).append('\n');
+        } else {
+            sb.append("✅ No refresh has completed yet\n");
+        }
+        if (lastError != null) sb.append("⚠️ Last error: ").append(lastError).append('\n');
+
+        StringJoiner upstreams = new StringJoiner(" · ", "🔌 Upstreams: ", "\n");
+        for (Endpoint e : Endpoint.all()) {
+            CircuitBreaker b = e.breaker();
+            String state = switch (b.state()) {
+                case CLOSED -> "ok";
+                case HALF_OPEN -> "probing";
+                case OPEN -> "down, retry in " + formatDuration(b.remainingOpen().toMillis());
+            };
+            upstreams.add(e.name() + " " + state);
+        }
+        sb.append(upstreams);
+        return sb.toString();
+    }
+
+    private static void run(CompletableFuture<Integer> future) {
+        Progress progress = new Progress();
+        current = progress;
+        lastAttemptAt = progress.startedAt;
+        int count = 0;
+        Throwable failure = null;
+        try {
+            count = PriceUpdater.refreshSkinport(progress);
+            lastDurationMs = System.currentTimeMillis() - progress.startedAt;
+            lastCompletedAt = System.currentTimeMillis();
+            lastCount = count;
+            lastError = null;
+        } catch (Throwable e) {
+            failure = e;
+            lastError = e.getMessage() != null ? e.getMessage() : e.toString();
+            System.err.println("[PriceRefresh] ⚠️ Refresh failed: " + lastError);
+        } finally {
+            // Even after an Error, or no refresh could ever run again. Cleared before completing,
+            // so a trigger from a completion callback starts a new run instead of joining this one.
+            inFlight.set(null);
+        }
+
+        if (failure == null) {
+            future.complete(count);
+        } else {
+            future.completeExceptionally(failure);
+            if (failure instanceof Error err) throw err;
+        }
+    }
+
+    private static String formatDuration(long ms) {
+        Duration d = Duration.ofMillis(ms);
+        if (d.toMinutes() > 0) return d.toMinutes() + "m " + d.toSecondsPart() + "s";
+        return String.format("%.1fs", ms / 1000.0);
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.cs2bot.utils;
+
+import java.util.Arrays;
+import java.util.function.ObjDoubleConsumer;
+
+/**
+ * Immutable, versioned price book indexed by {@link MarketNames} id. Prices live in a
+ * plain {@code double[]} with NaN for "no price", so a lookup is one array read with no
+ * hashing, boxing or allocation. A snapshot is built once by a refresh and then published
+ * with one reference swap; readers always see a complete book and never lock.
+ */
+public final class PriceSnapshot {
+
+    public static final PriceSnapshot EMPTY = new Builder(0).build(0);
+
+    private final double[] prices;
+    private final int size;
+    private final long version;
+    private final long createdAt;
+
+    private PriceSnapshot(double[] prices, int size, long version) {
+        this.prices = prices;
+        this.size = size;
+        this.version = version;
+        this.createdAt = System.currentTimeMillis();
+    }
+
+    /** Price for a {@link MarketNames} id, or {@code missing} if the book has no entry. */
+    public double get(int id, double missing) {
+        if (id < 0 || id >= prices.length) return missing;
+        double p = prices[id];
+        return Double.isNaN(p) ? missing : p;
+    }
+
+    /** Price for any spelling of {@code name}, or {@code missing}. Never interns. */
+    public double get(String name, double missing) {
+        return get(MarketNames.find(name), missing);
+    }
+
+    public boolean contains(String name) {
+        return !Double.isNaN(get(name, Double.NaN));
+    }
+
+    /** Visits every entry by canonical name, in id order, without boxing the prices. */
+    public void forEach(ObjDoubleConsumer<String> action) {
+        for (int id = 0; id < prices.length; id++) {
+            if (!Double.isNaN(prices[id])) action.accept(MarketNames.name(id), prices[id]);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public long version() {
+        return version;
+    }
+
+    public long createdAt() {
+        return createdAt;
+    }
+
+    /** Single-threaded builder; grows like an array list while a feed is streamed in. */
+    public static final class Builder {
+        private double[] prices;
+        private int size;
+
+        public Builder(int expected) {
+            prices = new double[Math.max(16, Math.max(expected, MarketNames.size()))];
+            Arrays.fill(prices, Double.NaN);
+        }
+
+        public Builder put(int id, double price) {
+            if (id < 0) return this;
+            if (id >= prices.length) {
+                int old = prices.length;
+                prices = Arrays.copyOf(prices, Math.max(id + 1, old * 2));
+                Arrays.fill(prices, old, prices.length, Double.NaN);
+            }
+            if (Double.isNaN(prices[id])) size++;
+            prices[id] = price;
+            return this;
+        }
+
+        public Builder put(String name, double price) {
+            return put(MarketNames.id(name), price);
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public PriceSnapshot build(long version) {
+            return new PriceSnapshot(prices, size, version);
+        }
+    }
+}
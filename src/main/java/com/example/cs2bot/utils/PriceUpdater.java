@@ -1,48 +1,49 @@
 package com.example.cs2bot.utils;
 
+import com.example.cs2bot.cases.SkinPool;
+import com.example.cs2bot.db.MongoUtil;
+import com.example.cs2bot.valuation.Valuation;
 import com.google.gson.*;
 import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 import io.github.cdimascio.dotenv.Dotenv;
-import com.mongodb.client.*;
-import com.mongodb.client.model.Filters;
-import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.*;
 import org.bson.Document;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.net.HttpURLConnection;
+import java.net.URI;
 import java.net.URL;
-import java.time.Instant;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.Semaphore;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicReference;
 
-public class PriceUpdater implements Runnable {
+public class PriceUpdater {
 
-    private static final String SKINPORT_URL = "https://api.skinport.com/v1/items?app_id=730&currency=EUR";
+    private static final URI SKINPORT_URI = URI.create("https://api.skinport.com/v1/items?app_id=730&currency=EUR");
     private static String SKINPORT_API_KEY = null;
-    private static MongoCollection<Document> priceCollection;
+    /** Longest the refresh worker waits for a Skinport token before skipping the cycle. */
+    private static final Duration SKINPORT_MAX_WAIT = Duration.ofSeconds(30);
+    /** Longest a background Steam lookup waits for a token. */
+    private static final Duration STEAM_MAX_WAIT = Duration.ofSeconds(15);
 
-    private static final Map<String, Double> skinportMap = new ConcurrentHashMap<>();
-    private static volatile long skinportLastLoad = 0L;
-    private static final long SKINPORT_TTL_MS = 10 * 60 * 1000; // 10 min cache
+    // Replaced wholesale after each refresh; readers never see a half-built book
+    private static final AtomicReference<PriceSnapshot> snapshot = new AtomicReference<>(PriceSnapshot.EMPTY);
 
-    private static final Semaphore steamLimiter = new Semaphore(1);
-    private static final Random rand = new Random();
+    private static final int BULK_BATCH = 1000;
+    private static final int MAX_INFLIGHT_BULKS = 4;
+    private static final Semaphore bulkPermits = new Semaphore(MAX_INFLIGHT_BULKS);
+    private static final ExecutorService bulkWriters = Executors.newFixedThreadPool(2, r -> {
+        Thread t = new Thread(r, "price-bulk-writer");
+        t.setDaemon(true);
+        return t;
+    });
 
-    private final int refreshInterval;
-    private final int totalThreads;
-    private final int threadIndex;
-
-    public PriceUpdater(int refreshInterval, int totalThreads, int threadIndex) {
-        this.refreshInterval = refreshInterval;
-        this.totalThreads = totalThreads;
-        this.threadIndex = threadIndex;
-        initMongo();
-    }
-
-    public PriceUpdater() {
-        this(600, 1, 0);
-    }
 
     static {
         try {
@@ -59,229 +60,305 @@ public class PriceUpdater implements Runnable {
                 System.out.println("🌍 Using public Skinport API mode");
             }
 
-            // Initialize MongoDB
-            String mongoUri = dotenv.get("MONGO_URI");
-            if (mongoUri != null && !mongoUri.isBlank()) {
-                MongoClient client = MongoClients.create(mongoUri);
-                MongoDatabase db = client.getDatabase("cs2_case_bot");
-                priceCollection = db.getCollection("prices");
-                System.out.println("🗄️ Connected to MongoDB for price cache");
-            }
-
         } catch (Exception e) {
-            System.err.println("[PriceProvider] ⚠️ Could not initialize MongoDB or .env: " + e.getMessage());
+            System.err.println("[PriceProvider] ⚠️ Could not load .env: " + e.getMessage());
         }
     }
 
-    private static void initMongo() {
-        if (priceCollection == null) {
-            try {
-                Dotenv dotenv = Dotenv.configure().ignoreIfMissing().load();
-                String mongoUri = dotenv.get("MONGO_URI");
-                if (mongoUri != null && !mongoUri.isBlank()) {
-                    MongoClient client = MongoClients.create(mongoUri);
-                    MongoDatabase db = client.getDatabase("cs2_case_bot");
-                    priceCollection = db.getCollection("prices");
-                }
-            } catch (Exception e) {
-                System.err.println("[PriceProvider] ⚠️ Mongo init failed: " + e.getMessage());
-            }
-        }
+    /** Price in EUR for any market name spelling; 0 if unknown. See {@link PriceCache} for the tiers. */
+    public static double getPriceEUR(String marketHashName) {
+        if (marketHashName == null || marketHashName.isBlank()) return 0.0;
+        PriceRefreshService.refreshIfStale();
+        return PriceCache.get(MarketNames.canonical(marketHashName));
     }
 
-    @Override
-    public void run() {
-        try {
-            System.out.printf("[Thread-%d] 🌀 Starting price updater (interval=%d ms)%n",
-                    threadIndex, refreshInterval);
-
-            while (true) {
-                loadSkinportIfStale();
-                Thread.sleep(refreshInterval);
-            }
+    /**
+     * Batch version of {@link #getPriceEUR}: one {@code $in} query for everything not in memory,
+     * never blocks on HTTP. Keyed by the names as passed in; unknown names are absent.
+     */
+    public static Map<String, Double> getPricesEUR(Collection<String> marketHashNames) {
+        PriceRefreshService.refreshIfStale();
 
-        } catch (InterruptedException e) {
-            System.err.printf("[Thread-%d] ⚠️ Interrupted%n", threadIndex);
-        } catch (Exception e) {
-            System.err.printf("[Thread-%d] ❌ Unexpected error: %s%n", threadIndex, e.getMessage());
+        Map<String, String> normalized = new HashMap<>(marketHashNames.size() * 2);
+        for (String name : marketHashNames) {
+            if (name != null && !name.isBlank()) normalized.put(name, MarketNames.canonical(name));
         }
+
+        Map<String, Double> prices = PriceCache.getPrices(normalized.values());
+        Map<String, Double> result = new HashMap<>(normalized.size() * 2);
+        normalized.forEach((original, n) -> {
+            Double p = prices.get(n);
+            if (p != null) result.put(original, p);
+        });
+        return result;
     }
 
-    public static double getPriceEUR(String marketHashName) {
+    /**
+     * Returns the in-memory Skinport price without touching MongoDB or HTTP, or 0 if unknown.
+     */
+    public static double peekPriceEUR(String marketHashName) {
         if (marketHashName == null || marketHashName.isBlank()) return 0.0;
+        return snapshot.get().get(marketHashName, 0.0);
+    }
 
-        String normalized = normalizeName(marketHashName);
-        loadSkinportIfStale();
-
-        Double sp = skinportMap.get(normalized);
-        if (sp != null && sp > 0) return sp;
-
-        if (priceCollection != null) {
-            Document cached = priceCollection.find(Filters.eq("_id", normalized)).first();
-            if (cached != null && cached.containsKey("price"))
-                return cached.getDouble("price");
-        }
+    /** {@link #peekPriceEUR(String)} for an already interned {@link MarketNames} id. */
+    public static double peekPriceEUR(int marketId) {
+        return snapshot.get().get(marketId, 0.0);
+    }
 
-        double steam = steamPriceOverview(normalized);
-        if (steam > 0) savePrice(normalized, steam);
-        return steam;
+    /** The current Skinport price book. Never null; empty until the first refresh completes. */
+    public static PriceSnapshot snapshot() {
+        return snapshot.get();
     }
 
     /**
-     * Load prices from Skinport and save to MongoDB.
+     * Load prices from Skinport and save to MongoDB. Only called by {@link PriceRefreshService}.
+     *
+     * @return number of prices in the published snapshot (unchanged on a 304)
+     * @throws IOException if the cycle was skipped or failed (breaker open, throttled, HTTP error,
+     *                     unreadable or empty catalogue), so the service reports it as a failure
      */
-    private static void loadSkinportIfStale() {
-        long now = Instant.now().toEpochMilli();
-        if (now - skinportLastLoad < SKINPORT_TTL_MS && !skinportMap.isEmpty()) return;
+    static int refreshSkinport(PriceRefreshService.Progress progress) throws IOException, InterruptedException {
+        return refreshSkinport(HttpFetcher.SHARED, SKINPORT_URI, Endpoint.SKINPORT, progress);
+    }
 
-        try {
-            HttpURLConnection conn = (HttpURLConnection) new URL(SKINPORT_URL).openConnection();
-            conn.setRequestProperty("User-Agent", "Mozilla/5.0 (Windows NT 10.0; Win64; x64) CS2PriceBot");
-            conn.setRequestProperty("Accept", "application/json");
-            conn.setRequestProperty("Accept-Language", "en-US,en;q=0.9");
-            conn.setRequestProperty("Accept-Encoding", "identity");
-            conn.setRequestProperty("Content-Type", "application/json; charset=utf-8");
-            conn.setConnectTimeout(10000);
-            conn.setReadTimeout(10000);
+    /** {@link #refreshSkinport(PriceRefreshService.Progress)} against any fetcher and URI, e.g. a local stub server. */
+    static int refreshSkinport(HttpFetcher fetcher, URI uri, Endpoint endpoint, PriceRefreshService.Progress progress)
+            throws IOException, InterruptedException {
+        Map<String, String> headers = new LinkedHashMap<>();
+        headers.put("User-Agent", "Mozilla/5.0 (Windows NT 10.0; Win64; x64) CS2PriceBot");
+        headers.put("Accept", "application/json");
+        headers.put("Accept-Language", "en-US,en;q=0.9");
+        if (SKINPORT_API_KEY != null && !SKINPORT_API_KEY.isBlank()) {
+            headers.put("Authorization", "Bearer " + SKINPORT_API_KEY);
+        }
 
-            if (SKINPORT_API_KEY != null && !SKINPORT_API_KEY.isBlank()) {
-                conn.setRequestProperty("Authorization", "Bearer " + SKINPORT_API_KEY);
+        // Without a published map a 304 would leave us empty, so only ask conditionally once loaded
+        boolean conditional = !snapshot.get().isEmpty();
+        // Never sit out a throttle or an outage here: skip the cycle and let the next one retry
+        if (!endpoint.permit(SKINPORT_MAX_WAIT)) {
+            throw new IOException("Skinport unavailable (" + endpoint.breaker() + "), cycle skipped");
+        }
+        HttpFetcher.Response resp;
+        try {
+            resp = fetcher.get(uri, headers, Duration.ofSeconds(30), conditional);
+        } catch (IOException | RuntimeException e) {
+            endpoint.recordError(e);
+            throw e;
+        } catch (InterruptedException e) {
+            endpoint.breaker().onSkipped();
+            throw e;
+        }
+        try (resp) {
+            int code = resp.status();
+            endpoint.record(code, resp.headers().firstValue("Retry-After").orElse(null));
+            if (resp.notModified()) {
+                System.out.println("[PriceProvider] 💤 Skinport catalogue unchanged (304), skipping parse");
+                progress.setTotal(0);
+                return snapshot.get().size();
             }
+            if (code == 429) throw new IOException("Skinport rate limit hit (429), cycle skipped");
+            if (code != 200) throw new IOException("Skinport HTTP " + code);
 
-            int code = conn.getResponseCode();
-            if (code == 429) {
-                System.err.println("[PriceProvider] ⚠️ Skinport rate limit hit — waiting 3 min...");
-                Thread.sleep(180_000);
-                return;
-            }
-            if (code != 200) {
-                System.err.println("[PriceProvider] ⚠️ Skinport HTTP " + code);
-                return;
-            }
+            int loaded = ingestSkinport(resp.body(), progress);
+            if (loaded == 0) throw new IOException("Skinport returned no usable prices");
+            resp.commit();
+            return loaded;
+        }
+    }
 
-            JsonReader reader = new JsonReader(new InputStreamReader(conn.getInputStream()));
+    /** Parses the Skinport item array from {@code body} and publishes the new price map. */
+    private static int ingestSkinport(InputStream body, PriceRefreshService.Progress progress)
+            throws IOException, InterruptedException {
+        long startTime = System.currentTimeMillis();
+        // Previous catalogue size is the best estimate until the stream ends
+        PriceSnapshot previous = snapshot.get();
+        progress.setTotal(previous.size());
+        System.out.println("[Skinport] 🚀 Streaming full catalogue...");
+
+        PriceSnapshot.Builder next = new PriceSnapshot.Builder(previous.size());
+        List<WriteModel<Document>> batch = new ArrayList<>(BULK_BATCH);
+        List<Future<?>> writes = new ArrayList<>();
+        Date updated = new Date();
+        int processed = 0;
+
+        try (JsonReader reader = new JsonReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
             reader.setLenient(true);
-            JsonArray arr = JsonParser.parseReader(reader).getAsJsonArray();
-
-            List<JsonElement> all = new ArrayList<>();
-            arr.forEach(all::add);
-            Collections.shuffle(all);
-            List<JsonElement> subset = all.subList(0, Math.min(100, all.size()));
-
-            Map<String, Double> temp = new HashMap<>();
-            int total = subset.size();
-            int processed = 0;
-            long startTime = System.currentTimeMillis();
-
-            System.out.printf("[Skinport] 🚀 Updating %d random skin prices...%n", total);
-
-            for (JsonElement el : subset) {
-                JsonObject o = el.getAsJsonObject();
-                if (!o.has("market_hash_name")) continue;
-
-                String name = o.get("market_hash_name").getAsString();
-                String n = normalizeName(name);
-                double price = safeDouble(o, "lowest_price");
-                if (price <= 0) price = safeDouble(o, "min_price");
-
-                if (price > 0) {
-                    temp.put(n, price);
-                    savePrice(n, price); // ✅ save directly to MongoDB
-                }
-
+            reader.beginArray();
+            while (reader.hasNext()) {
+                SkinportRow row = readRow(reader);
                 processed++;
-                if (processed % 10 == 0 || processed == total) {
-                    double percent = (processed / (double) total) * 100;
-                    System.out.printf("[Skinport] ⏳ %d/%d (%.0f%%)%n", processed, total, percent);
+                progress.advance();
+                if (row == null) continue;
+
+                next.put(row.id, row.price);
+                batch.add(new UpdateOneModel<>(
+                        Filters.eq("_id", MarketNames.name(row.id)),
+                        Updates.combine(Updates.set("price", row.price), Updates.set("updated", updated)),
+                        new UpdateOptions().upsert(true)));
+
+                if (batch.size() >= BULK_BATCH) {
+                    writes.add(submitBulk(batch));
+                    batch = new ArrayList<>(BULK_BATCH);
                 }
-
-                Thread.sleep(200);
             }
+            reader.endArray();
+        }
+        if (!batch.isEmpty()) writes.add(submitBulk(batch));
+        progress.setTotal(processed);
 
-            long duration = System.currentTimeMillis() - startTime;
-            if (!temp.isEmpty()) {
-                skinportMap.clear();
-                skinportMap.putAll(temp);
-                skinportLastLoad = now;
-                System.out.printf("[PriceProvider] ✅ Loaded %d Skinport prices in %.1fs%n",
-                        temp.size(), duration / 1000.0);
+        for (Future<?> f : writes) {
+            try {
+                f.get();
+            } catch (ExecutionException e) {
+                System.err.println("[PriceProvider] ⚠️ Bulk price write failed: " + e.getCause().getMessage());
             }
-
-        } catch (Exception e) {
-            System.err.println("[PriceProvider] ⚠️ Skinport fetch issue: " + e.getMessage());
         }
-    }
 
-    private static void savePrice(String name, double price) {
-        try {
-            if (priceCollection == null) return;
-            Document doc = new Document("_id", name)
-                    .append("price", price)
-                    .append("updated", new Date());
-            priceCollection.replaceOne(Filters.eq("_id", name), doc, new ReplaceOptions().upsert(true));
-        } catch (Exception e) {
-            System.err.println("[PriceProvider] ⚠️ Mongo save failed for " + name + ": " + e.getMessage());
+        long duration = System.currentTimeMillis() - startTime;
+        if (next.size() > 0) {
+            PriceSnapshot published = next.build(previous.version() + 1);
+            snapshot.set(published);
+            SkinPool.requestReload();
+            System.out.printf("[PriceProvider] ✅ Loaded %d Skinport prices (%d rows, v%d) in %.1fs%n",
+                    published.size(), processed, published.version(), duration / 1000.0);
+
+            try {
+                PriceHistory.record(published, updated);
+            } catch (Exception e) {
+                System.err.println("[PriceHistory] ⚠️ Recording failed, history skips this refresh: " + e.getMessage());
+            }
+            Valuation.priceBookChanged(previous, published);
+            try {
+                CatalogueSync.sync(published);
+            } catch (Exception e) {
+                System.err.println("[CatalogueSync] ⚠️ Sync failed, catalogue unchanged: " + e.getMessage());
+            }
         }
+        return next.size();
     }
 
-    private static double steamPriceOverview(String marketHashName) {
-        String url = "https://steamcommunity.com/market/priceoverview/"
-                + "?currency=3&appid=730&market_hash_name=" + encode(marketHashName);
+    private record SkinportRow(int id, double price) {}
 
-        for (int attempt = 1; attempt <= 2; attempt++) {
-            try {
-                steamLimiter.acquire();
-                Thread.sleep(200 + rand.nextInt(400));
+    /** Reads one item object field by field; returns null for rows without a usable name or price. */
+    private static SkinportRow readRow(JsonReader reader) throws IOException {
+        String name = null;
+        double minPrice = 0, suggested = 0;
 
-                HttpURLConnection conn = (HttpURLConnection) new URL(url).openConnection();
-                conn.setRequestProperty("User-Agent", "Mozilla/5.0 (CS2PriceBot)");
-                conn.setConnectTimeout(10000);
-                conn.setReadTimeout(10000);
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String field = reader.nextName();
+            if (reader.peek() == JsonToken.NULL) {
+                reader.nextNull();
+                continue;
+            }
+            switch (field) {
+                case "market_hash_name" -> name = reader.nextString();
+                case "min_price", "lowest_price" -> minPrice = reader.nextDouble();
+                case "suggested_price" -> suggested = reader.nextDouble();
+                default -> reader.skipValue();
+            }
+        }
+        reader.endObject();
 
-                if (conn.getResponseCode() != 200) return 0.0;
+        double price = minPrice > 0 ? minPrice : suggested;
+        if (name == null || price <= 0) return null;
+        // Normalized and interned once per distinct spelling; repeat refreshes are a hash lookup
+        return new SkinportRow(MarketNames.id(name), price);
+    }
 
-                JsonObject json = JsonParser.parseReader(new InputStreamReader(conn.getInputStream()))
-                        .getAsJsonObject();
+    /**
+     * Hands a batch to the writer pool. Blocks while {@link #MAX_INFLIGHT_BULKS} are
+     * already pending, which keeps memory flat no matter how big the feed is.
+     */
+    private static Future<?> submitBulk(List<WriteModel<Document>> batch) throws InterruptedException {
+        MongoCollection<Document> priceCollection = priceCollection();
+        if (priceCollection == null) return CompletableFuture.completedFuture(null);
+        bulkPermits.acquire();
+        return bulkWriters.submit(() -> {
+            try {
+                priceCollection.bulkWrite(batch, new BulkWriteOptions().ordered(false));
+            } finally {
+                bulkPermits.release();
+            }
+        });
+    }
 
-                if (!json.has("lowest_price") || json.get("lowest_price").isJsonNull()) return 0.0;
+    /** The {@code prices} collection (PriceCache's L2), or null when MongoDB is not configured. */
+    static MongoCollection<Document> priceCollection() {
+        return MongoUtil.isConnected() ? MongoUtil.prices() : null;
+    }
 
-                String priceStr = json.get("lowest_price").getAsString()
-                        .replace("€", "").replace(",", ".").replace(" ", "").trim();
+    /** Steam market price overview; PriceCache stores successful results. */
+    static double steamPriceOverview(String marketHashName) {
+        String url = steamOverviewUri(marketHashName).toString();
 
-                if (!priceStr.matches("[0-9.]+")) return 0.0;
+        for (int attempt = 1; attempt <= 2; attempt++) {
+            try {
+                // Fails fast while Steam's breaker is open; a 429 pauses the limiter, so the retry rarely gets a permit
+                if (!Endpoint.STEAM.permit(STEAM_MAX_WAIT)) return 0.0;
+
+                // Every permitted call must report back, or a half-open trial slot stays taken
+                HttpURLConnection conn;
+                int code;
+                try {
+                    conn = (HttpURLConnection) new URL(url).openConnection();
+                    conn.setRequestProperty("User-Agent", "Mozilla/5.0 (CS2PriceBot)");
+                    conn.setConnectTimeout(10000);
+                    conn.setReadTimeout(10000);
+                    code = conn.getResponseCode();
+                } catch (Exception e) {
+                    Endpoint.STEAM.recordError(e);
+                    continue;
+                }
+                Endpoint.STEAM.record(code, conn.getHeaderField("Retry-After"));
+                if (code == 429 || code >= 500) continue;
+                if (code != 200) return 0.0;
 
-                double price = Double.parseDouble(priceStr);
-                savePrice(marketHashName, price); // ✅ store successful Steam prices
-                System.out.printf("[Steam] 💰 %s = %.2f€%n", marketHashName, price);
+                double price = parseSteamOverview(conn.getInputStream());
+                if (price > 0) System.out.printf("[Steam] 💰 %s = %.2f€%n", marketHashName, price);
                 return price;
 
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return 0.0;
             } catch (Exception ignored) {
-            } finally {
-                new Timer(true).schedule(new TimerTask() {
-                    @Override public void run() { steamLimiter.release(); }
-                }, 1000);
             }
         }
         return 0.0;
     }
 
-    private static double safeDouble(JsonObject o, String key) {
-        try { return o.get(key).getAsDouble(); } catch (Exception e) { return 0.0; }
+    static URI steamOverviewUri(String marketHashName) {
+        return URI.create("https://steamcommunity.com/market/priceoverview/"
+                + "?currency=3&appid=730&market_hash_name=" + encode(marketHashName));
     }
 
-    private static String encode(String s) {
-        try { return java.net.URLEncoder.encode(s, "UTF-8"); } catch (Exception e) { return s; }
+    /** {@code lowest_price} from a price overview body ("1.234,56€" style, currency=3), or 0 if absent. */
+    static double parseSteamOverview(InputStream body) {
+        JsonObject json = JsonParser.parseReader(new InputStreamReader(body, StandardCharsets.UTF_8)).getAsJsonObject();
+        if (!json.has("lowest_price") || json.get("lowest_price").isJsonNull()) return 0.0;
+        return parseEuroAmount(json.get("lowest_price").getAsString());
     }
 
-    private static String normalizeName(String name) {
-        if (name == null) return "";
-        String n = name.trim();
-        if (n.startsWith("? ")) n = "★ " + n.substring(2);
-        if (n.startsWith("?")) n = "★ " + n.substring(1).trim();
-        if ((n.contains("Gloves") || n.contains("Knife") || n.contains("Hand Wraps"))
-                && !n.startsWith("★ ")) {
-            n = "★ " + n;
+    /**
+     * "1.234,56€", "0,03€", "1 234,5 €" or "1,234.56" → the amount; 0 if there are no digits.
+     * The last separator is the decimal point when at most two digits follow it; every other
+     * separator groups thousands.
+     */
+    static double parseEuroAmount(String raw) {
+        String s = raw.replaceAll("[^0-9.,]", "");
+        int sep = Math.max(s.lastIndexOf(','), s.lastIndexOf('.'));
+        String whole = s, fraction = "";
+        if (sep >= 0 && s.length() - sep - 1 <= 2) {
+            whole = s.substring(0, sep);
+            fraction = s.substring(sep + 1);
         }
-        return n;
+        whole = whole.replace(".", "").replace(",", "");
+        if (whole.isEmpty() && fraction.isEmpty()) return 0.0;
+        return Double.parseDouble((whole.isEmpty() ? "0" : whole) + "." + (fraction.isEmpty() ? "0" : fraction));
+    }
+
+    private static String encode(String s) {
+        try { return java.net.URLEncoder.encode(s, "UTF-8"); } catch (Exception e) { return s; }
     }
 }
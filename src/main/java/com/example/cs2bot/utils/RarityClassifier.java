@@ -0,0 +1,197 @@
+package com.example.cs2bot.utils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Name → rarity rules compiled into an Aho-Corasick automaton. One left-to-right pass over
+ * the name finds every matching pattern; the winner is the rule with the highest priority,
+ * ties going to the rule listed first, so the result never depends on map iteration order.
+ * <p>
+ * Rules come from {@code rarity-rules.txt} on the classpath (or any file in the same
+ * {@code priority | pattern | rarity} format) and results are cached per name.
+ */
+public final class RarityClassifier {
+
+    public static final String UNKNOWN = "Unknown";
+    private static final String DEFAULT_RULES = "/rarity-rules.txt";
+    private static final int MAX_CACHED = 50_000;
+
+    private record Rule(int priority, String pattern, String rarity) {}
+
+    private static volatile RarityClassifier current;
+
+    // Automaton: per-state sorted transition chars and targets, failure links, best rule per state
+    private final char[][] edgeChars;
+    private final int[][] edgeTargets;
+    private final int[] fail;
+    private final int[] best;
+    private final Rule[] rules;
+    private final ConcurrentHashMap<String, String> cache = new ConcurrentHashMap<>();
+
+    private RarityClassifier(List<Rule> ruleList) {
+        this.rules = ruleList.toArray(new Rule[0]);
+
+        // 1. Trie
+        List<TreeMap<Character, Integer>> trie = new ArrayList<>();
+        List<Integer> outputs = new ArrayList<>();
+        trie.add(new TreeMap<>());
+        outputs.add(-1);
+        for (int r = 0; r < rules.length; r++) {
+            int state = 0;
+            for (char c : rules[r].pattern.toCharArray()) {
+                Integer next = trie.get(state).get(c);
+                if (next == null) {
+                    next = trie.size();
+                    trie.add(new TreeMap<>());
+                    outputs.add(-1);
+                    trie.get(state).put(c, next);
+                }
+                state = next;
+            }
+            outputs.set(state, better(outputs.get(state), r));
+        }
+
+        int n = trie.size();
+        edgeChars = new char[n][];
+        edgeTargets = new int[n][];
+        fail = new int[n];
+        best = new int[n];
+        for (int s = 0; s < n; s++) {
+            TreeMap<Character, Integer> edges = trie.get(s);
+            edgeChars[s] = new char[edges.size()];
+            edgeTargets[s] = new int[edges.size()];
+            int i = 0;
+            for (Map.Entry<Character, Integer> e : edges.entrySet()) {
+                edgeChars[s][i] = e.getKey();
+                edgeTargets[s][i++] = e.getValue();
+            }
+            best[s] = outputs.get(s);
+        }
+
+        // 2. Failure links in BFS order; each state inherits the best rule of its failure state
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        for (int child : edgeTargets[0]) {
+            fail[child] = 0;
+            queue.add(child);
+        }
+        while (!queue.isEmpty()) {
+            int s = queue.poll();
+            for (int i = 0; i < edgeChars[s].length; i++) {
+                char c = edgeChars[s][i];
+                int child = edgeTargets[s][i];
+                int f = fail[s];
+                while (f != 0 && step(f, c) < 0) f = fail[f];
+                int target = step(f, c);
+                fail[child] = target >= 0 && target != child ? target : 0;
+                best[child] = better(best[child], best[fail[child]]);
+                queue.add(child);
+            }
+        }
+    }
+
+    /** The classifier in use, loading the bundled rules on first call. */
+    public static RarityClassifier get() {
+        RarityClassifier c = current;
+        if (c == null) {
+            synchronized (RarityClassifier.class) {
+                if (current == null) current = fromResource();
+                c = current;
+            }
+        }
+        return c;
+    }
+
+    /** Replaces the active rules with those in {@code file}; keeps the current ones if it can't be read. */
+    public static void load(Path file) {
+        try (InputStream in = Files.newInputStream(file)) {
+            current = parse(in);
+            System.out.println("[RarityClassifier] ✅ Loaded " + current.rules.length + " rules from " + file);
+        } catch (Exception e) {
+            System.err.println("[RarityClassifier] ⚠️ Could not load " + file + ", keeping current rules: " + e.getMessage());
+        }
+    }
+
+    public static String classify(String name) {
+        return get().rarityOf(name);
+    }
+
+    public String rarityOf(String name) {
+        if (name == null || name.isBlank()) return UNKNOWN;
+        String cached = cache.get(name);
+        if (cached != null) return cached;
+
+        int state = 0, winner = -1;
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            int next;
+            while ((next = step(state, c)) < 0 && state != 0) state = fail[state];
+            state = Math.max(next, 0);
+            winner = better(winner, best[state]);
+        }
+
+        String rarity = winner < 0 ? UNKNOWN : rules[winner].rarity;
+        if (cache.size() >= MAX_CACHED) cache.clear();
+        cache.put(name, rarity);
+        return rarity;
+    }
+
+    public int ruleCount() {
+        return rules.length;
+    }
+
+    private int step(int state, char c) {
+        int i = Arrays.binarySearch(edgeChars[state], c);
+        return i >= 0 ? edgeTargets[state][i] : -1;
+    }
+
+    /** Higher priority wins; on a tie, the rule listed first. -1 means no rule. */
+    private int better(int a, int b) {
+        if (a < 0) return b;
+        if (b < 0) return a;
+        if (rules[a].priority != rules[b].priority) return rules[a].priority > rules[b].priority ? a : b;
+        return Math.min(a, b);
+    }
+
+    private static RarityClassifier fromResource() {
+        try (InputStream in = RarityClassifier.class.getResourceAsStream(DEFAULT_RULES)) {
+            if (in == null) throw new IOException(DEFAULT_RULES + " not on classpath");
+            return parse(in);
+        } catch (Exception e) {
+            System.err.println("[RarityClassifier] ⚠️ No rarity rules, everything is " + UNKNOWN + ": " + e.getMessage());
+            return new RarityClassifier(List.of());
+        }
+    }
+
+    /** Lines of {@code priority | pattern | rarity}; blank lines and {@code #} comments are ignored. */
+    static RarityClassifier parse(InputStream in) throws IOException {
+        List<Rule> rules = new ArrayList<>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        String line;
+        int lineNo = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNo++;
+            line = line.strip();
+            if (line.isEmpty() || line.startsWith("#")) continue;
+
+            String[] parts = line.split("\\|");
+            if (parts.length != 3 || parts[1].isBlank() || parts[2].isBlank()) {
+                System.err.println("[RarityClassifier] ⚠️ Skipping malformed rule on line " + lineNo + ": " + line);
+                continue;
+            }
+            try {
+                rules.add(new Rule(Integer.parseInt(parts[0].strip()), parts[1].strip(), parts[2].strip()));
+            } catch (NumberFormatException e) {
+                System.err.println("[RarityClassifier] ⚠️ Bad priority on line " + lineNo + ": " + parts[0].strip());
+            }
+        }
+        return new RarityClassifier(rules);
+    }
+}
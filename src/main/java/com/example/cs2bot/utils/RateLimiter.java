@@ -0,0 +1,162 @@
+package com.example.cs2bot.utils;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Token-bucket rate limiter, one instance per upstream provider.
+ * <p>
+ * {@link #acquire} reserves a token and returns how long the caller has to wait for it.
+ * Blocking callers sleep in their own thread. Async callers get a future that the one
+ * shared scheduler completes, so nobody creates a thread or Timer per request.
+ * A 429 halves the rate and pauses the bucket for the {@code Retry-After} period.
+ * Successful calls then step the rate back up towards the configured value.
+ */
+public final class RateLimiter {
+
+    public static final RateLimiter STEAM = new RateLimiter("steam", 1.0, 2);
+    public static final RateLimiter CSFLOAT = new RateLimiter("csfloat", 1.0, 2);
+    /** Skinport allows 8 requests per 5 minutes on /v1/items. */
+    public static final RateLimiter SKINPORT = new RateLimiter("skinport", 8.0 / 300, 2);
+
+    private static final Duration DEFAULT_BACKOFF = Duration.ofSeconds(10);
+
+    private static final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "rate-limiter");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final String name;
+    private final double baseRate;
+    private final double minRate;
+    private final double burst;
+
+    // Guarded by this
+    private double rate;
+    private double tokens;
+    private long lastRefill = System.nanoTime();
+    private long pausedUntil;
+
+    private final LongAdder acquired = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder throttled = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    public RateLimiter(String name, double permitsPerSecond, int burst) {
+        this.name = name;
+        this.baseRate = permitsPerSecond;
+        this.minRate = permitsPerSecond / 16;
+        this.burst = burst;
+        this.rate = permitsPerSecond;
+        this.tokens = burst;
+    }
+
+    /** Blocks until a token is available. */
+    public void acquire() throws InterruptedException {
+        long wait = reserve(Long.MAX_VALUE);
+        if (wait > 0) TimeUnit.NANOSECONDS.sleep(wait);
+    }
+
+    /** Blocks for at most {@code maxWait}; returns false (and counts a rejection) if the wait would be longer. */
+    public boolean acquire(Duration maxWait) throws InterruptedException {
+        long wait = reserve(maxWait.toNanos());
+        if (wait < 0) return false;
+        if (wait > 0) TimeUnit.NANOSECONDS.sleep(wait);
+        return true;
+    }
+
+    /** Takes a token only if one is available right now. */
+    public boolean tryAcquire() {
+        return reserve(0) >= 0;
+    }
+
+    /** Completes once a token is available, without holding a thread while waiting. */
+    public CompletableFuture<Void> acquireAsync() {
+        long wait = reserve(Long.MAX_VALUE);
+        if (wait == 0) return CompletableFuture.completedFuture(null);
+
+        CompletableFuture<Void> f = new CompletableFuture<>();
+        scheduler.schedule(() -> f.complete(null), wait, TimeUnit.NANOSECONDS);
+        return f;
+    }
+
+    /** Upstream answered 429: halve the rate and pause for {@code retryAfter} (or a default back-off). */
+    public void onThrottled(Duration retryAfter) {
+        throttled.increment();
+        Duration pause = retryAfter != null ? retryAfter : DEFAULT_BACKOFF;
+        synchronized (this) {
+            rate = Math.max(minRate, rate / 2);
+            tokens = 0;
+            pausedUntil = Math.max(pausedUntil, System.nanoTime() + pause.toNanos());
+        }
+        System.err.printf("[RateLimiter] ⚠️ %s throttled — pausing %ds, rate now %.3f/s%n",
+                name, pause.toSeconds(), currentRate());
+    }
+
+    /** Upstream answered normally: step the rate back towards its configured value. */
+    public synchronized void onSuccess() {
+        if (rate < baseRate) rate = Math.min(baseRate, rate + baseRate / 10);
+    }
+
+    public synchronized double currentRate() {
+        return rate;
+    }
+
+    @Override
+    public String toString() {
+        long n = acquired.sum();
+        return String.format("%s: rate=%.3f/s acquired=%d rejected=%d throttled=%d wait avg=%.0fms max=%.0fms",
+                name, currentRate(), n, rejected.sum(), throttled.sum(),
+                n == 0 ? 0.0 : waitNanos.sum() / 1e6 / n, maxWaitNanos.get() / 1e6);
+    }
+
+    /**
+     * Reserves one token. Returns the nanos to wait before using it,
+     * or -1 if that would exceed {@code limitNanos} (nothing is reserved then).
+     */
+    private long reserve(long limitNanos) {
+        long wait;
+        synchronized (this) {
+            long now = System.nanoTime();
+            tokens = Math.min(burst, tokens + (now - lastRefill) * rate / 1e9);
+            lastRefill = now;
+
+            long pauseWait = Math.max(0, pausedUntil - now);
+            double deficit = 1.0 - tokens;
+            long tokenWait = deficit > 0 ? (long) (deficit / rate * 1e9) : 0;
+            wait = Math.max(pauseWait, tokenWait);
+
+            if (wait > limitNanos) {
+                rejected.increment();
+                return -1;
+            }
+            tokens -= 1.0;
+        }
+        acquired.increment();
+        waitNanos.add(wait);
+        maxWaitNanos.accumulateAndGet(wait, Math::max);
+        return wait;
+    }
+
+    /** Parses a Retry-After header (delta-seconds or HTTP-date); null if absent or malformed. */
+    public static Duration parseRetryAfter(String header) {
+        if (header == null || header.isBlank()) return null;
+        try {
+            return Duration.ofSeconds(Math.max(0, Long.parseLong(header.trim())));
+        } catch (NumberFormatException ignored) {
+        }
+        try {
+            ZonedDateTime at = ZonedDateTime.parse(header.trim(), DateTimeFormatter.RFC_1123_DATE_TIME);
+            Duration d = Duration.between(ZonedDateTime.now(at.getZone()), at);
+            return d.isNegative() ? Duration.ZERO : d;
+        } catch (Exception ignored) {
+            return null;
+        }
+    }
+}
@@ -4,16 +4,20 @@ import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
 import io.github.cdimascio.dotenv.Dotenv;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.net.HttpURLConnection;
+import java.net.URI;
 import java.net.URL;
-import java.util.Random;
-import java.util.concurrent.Semaphore;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
 
 public class SteamMarketAPI {
 
-    private static final Semaphore limiter = new Semaphore(1);
-    private static final Random random = new Random();
+    /** Longest a caller waits for a CSFloat token before giving up. */
+    private static final Duration MAX_WAIT = Duration.ofSeconds(2);
     private static final String CSFLOAT_API = "https://api.csfloat.com/api/v1/listings";
     private static String CSFLOAT_KEY;
 
@@ -32,77 +36,81 @@ public class SteamMarketAPI {
     }
 
     /**
-     * Fetches price and rarity for a CS2 item.
-     * Returns formatted string for logs.
+     * Cheapest CSFloat listing in EUR, or 0. One attempt: while the CSFloat breaker is open or the
+     * limiter is paused after a 429 this returns 0 at once instead of sleeping on the caller's thread.
      */
     public static double getPriceEUR(String marketHashName) {
         if (marketHashName == null || marketHashName.isBlank()) return 0.0;
 
-        String query = CSFLOAT_API + "?market_hash_name=" + encode(marketHashName);
-        int attempts = 0;
+        try {
+            if (!Endpoint.CSFLOAT.permit(MAX_WAIT)) {
+                System.err.printf("[CSFloatAPI] ⚠️  Skipped %s, CSFloat unavailable%n", marketHashName);
+                return 0.0;
+            }
 
-        while (attempts < 3) {
-            attempts++;
+            HttpURLConnection conn;
+            int code;
             try {
-                limiter.acquire();
-                Thread.sleep(200 + random.nextInt(300));
-
-                HttpURLConnection conn = (HttpURLConnection) new URL(query).openConnection();
-                conn.setRequestProperty("User-Agent", "Mozilla/5.0 (CS2PriceBot)");
-                conn.setRequestProperty("Authorization", "Bearer " + CSFLOAT_KEY);
+                conn = (HttpURLConnection) new URL(listingsUri(marketHashName).toString()).openConnection();
+                headers().forEach(conn::setRequestProperty);
                 conn.setConnectTimeout(10000);
                 conn.setReadTimeout(10000);
+                code = conn.getResponseCode();
+            } catch (IOException | RuntimeException e) {
+                Endpoint.CSFLOAT.recordError(e);
+                throw e;
+            }
+            Endpoint.CSFLOAT.record(code, conn.getHeaderField("Retry-After"));
 
-                int code = conn.getResponseCode();
-
-                if (code == 429) {
-                    int wait = 6000 + random.nextInt(4000);
-                    System.err.printf("[CSFloatAPI] ⚠️  429 Rate limit hit for %s — waiting %ds%n",
-                            marketHashName, wait / 1000);
-                    Thread.sleep(wait);
-                    continue;
-                }
-
-                if (code != 200) {
-                    System.err.printf("[CSFloatAPI] ⚠️  HTTP %d for %s%n", code, marketHashName);
-                    return 0.0;
-                }
-
-                JsonObject json = JsonParser.parseReader(new InputStreamReader(conn.getInputStream())).getAsJsonObject();
-
-                if (!json.has("listings") || !json.get("listings").isJsonArray()
-                        || json.getAsJsonArray("listings").size() == 0) {
-                    System.err.printf("[CSFloatAPI] ⚠️  No listings for %s%n", marketHashName);
-                    return 0.0;
-                }
-
-                JsonObject firstListing = json.getAsJsonArray("listings").get(0).getAsJsonObject();
-                double priceUsd = firstListing.get("price").getAsDouble() / 100.0;
-                double eur = priceUsd * 0.93;
-
-                // 🧩 Get rarity using local schema
-                String rarity = SteamSchemaAPI.getRarity(marketHashName);
-
-                System.out.printf("[CSFloatAPI] ✅ %s → %.2f EUR (%s)%n", marketHashName, eur, rarity);
-                return eur;
-
-            } catch (Exception e) {
-                System.err.printf("[CSFloatAPI] ❌ Error fetching %s: %s%n", marketHashName, e.getMessage());
-                try {
-                    Thread.sleep(2000 + random.nextInt(2000));
-                } catch (InterruptedException ignored) {}
-            } finally {
-                new Thread(() -> {
-                    try {
-                        Thread.sleep(1000);
-                        limiter.release();
-                    } catch (InterruptedException ignored) {}
-                }).start();
+            if (code == 429) {
+                // The limiter pauses every CSFloat caller, not just this one
+                System.err.printf("[CSFloatAPI] ⚠️  429 Rate limit hit for %s%n", marketHashName);
+                return 0.0;
+            }
+            if (code != 200) {
+                System.err.printf("[CSFloatAPI] ⚠️  HTTP %d for %s%n", code, marketHashName);
+                return 0.0;
             }
+
+            double eur = parseListingsEUR(conn.getInputStream());
+            if (eur <= 0) {
+                System.err.printf("[CSFloatAPI] ⚠️  No listings for %s%n", marketHashName);
+                return 0.0;
+            }
+
+            // 🧩 Get rarity using local schema
+            String rarity = SteamSchemaAPI.getRarity(marketHashName);
+
+            System.out.printf("[CSFloatAPI] ✅ %s → %.2f EUR (%s)%n", marketHashName, eur, rarity);
+            return eur;
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return 0.0;
+        } catch (Exception e) {
+            System.err.printf("[CSFloatAPI] ❌ Error fetching %s: %s%n", marketHashName, e.getMessage());
+            return 0.0;
         }
+    }
+
+    static URI listingsUri(String marketHashName) {
+        return URI.create(CSFLOAT_API + "?market_hash_name=" + encode(marketHashName));
+    }
+
+    static Map<String, String> headers() {
+        return Map.of("User-Agent", "Mozilla/5.0 (CS2PriceBot)", "Authorization", "Bearer " + CSFLOAT_KEY);
+    }
 
-        System.err.printf("[CSFloatAPI] ⚠️  Skipped %s after 3 failed attempts.%n", marketHashName);
-        return 0.0;
+    /** Cheapest listing from a listings body, converted USD → EUR; 0 if there are no listings. */
+    static double parseListingsEUR(InputStream body) {
+        JsonObject json = JsonParser.parseReader(new InputStreamReader(body, StandardCharsets.UTF_8)).getAsJsonObject();
+        if (!json.has("listings") || !json.get("listings").isJsonArray()
+                || json.getAsJsonArray("listings").size() == 0) {
+            return 0.0;
+        }
+        JsonObject firstListing = json.getAsJsonArray("listings").get(0).getAsJsonObject();
+        double priceUsd = firstListing.get("price").getAsDouble() / 100.0;
+        return priceUsd * 0.93;
     }
 
     private static String encode(String s) {
@@ -0,0 +1,325 @@
+package com.example.cs2bot.valuation;
+
+import com.example.cs2bot.cases.SkinPool;
+import com.example.cs2bot.db.MongoUtil;
+import com.example.cs2bot.utils.PriceSnapshot;
+import com.example.cs2bot.utils.PriceUpdater;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.*;
+import org.bson.Document;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps {@code users.inventoryCents} (inventory value in euro cents) up to date without
+ * re-pricing whole inventories.
+ * <p>
+ * {@code holdings} is the inverted index behind it, one document per user and skin:
+ * {@code {_id: "<userId>:<skinId>", user, skin, qty, unit}}, where {@code unit} is the price in
+ * cents already counted in the user's total. The invariant is
+ * {@code inventoryCents = Σ qty × unit} over the user's holdings, and every change keeps it:
+ * <ul>
+ *   <li>items in or out: the touched holdings are re-priced at the current price and the user
+ *   gets {@code newQty × newUnit − oldQty × oldUnit}</li>
+ *   <li>price refresh: the old and new snapshots are diffed per skin. A fork-join pass over the
+ *   changed skins only reads their holders (one {@code $in} per leaf), moves each holding to
+ *   the new unit and sums {@code qty × Δunit} per user. The users are then updated with one
+ *   bulk {@code $inc}.</li>
+ * </ul>
+ * All of this runs on one valuation thread, so read-modify-write on a holding never races.
+ * Callers only queue work. {@link #rebuildAll()} recomputes everything from the inventories.
+ * It backfills on first start and repairs drift after a crash between the two writes.
+ */
+public final class Valuation {
+
+    public record Standing(String userId, long cents) {}
+
+    private record Change(String skinId, int cents) {}
+
+    /** Changed skins per fork-join leaf, i.e. per {@code $in} query on holdings. */
+    private static final int LEAF = 200;
+    private static final int WRITE_BATCH = 1000;
+
+    private static final ExecutorService worker = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "valuation");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /** The leaves block on MongoDB, so they get their own pool rather than the common one. */
+    private static final ForkJoinPool revaluers = new ForkJoinPool(4, pool -> {
+        ForkJoinWorkerThread t = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+        t.setName("valuation-fj-" + t.getPoolIndex());
+        t.setDaemon(true);
+        return t;
+    }, null, false);
+
+    private static final LongAdder inventoryEvents = new LongAdder();
+    private static final LongAdder revaluations = new LongAdder();
+    private static final LongAdder changedSkins = new LongAdder();
+    private static final LongAdder holdingsRevalued = new LongAdder();
+    private static final LongAdder failures = new LongAdder();
+
+    private Valuation() {}
+
+    /**
+     * Backfills {@code holdings} from the inventories when it is empty (or always with
+     * {@code rebuild}). Runs before the bot accepts commands, so no inventory changes race it.
+     */
+    public static void start(boolean rebuild) {
+        if (!MongoUtil.isConnected()) return;
+        try {
+            boolean empty = MongoUtil.holdings().estimatedDocumentCount() == 0
+                    && MongoUtil.users().find(Filters.exists("inventory.0")).limit(1).first() != null;
+            if (rebuild || empty) rebuildAll();
+        } catch (Exception e) {
+            System.err.println("[Valuation] ⚠️ Backfill failed, values may be incomplete: " + e.getMessage());
+        }
+    }
+
+    /** Items pushed into inventories: skin ids per user, one entry per item. */
+    public static void itemsAdded(Map<String, List<String>> skinsByUser) {
+        Map<String, Map<String, Integer>> deltas = new HashMap<>();
+        skinsByUser.forEach((user, skins) -> {
+            Map<String, Integer> d = deltas.computeIfAbsent(user, k -> new HashMap<>());
+            for (String skin : skins) d.merge(skin, 1, Integer::sum);
+        });
+        submit(deltas);
+    }
+
+    /** Items that moved from one inventory to another, e.g. a completed trade. */
+    public static void itemsMoved(String from, String to, List<String> skinIds) {
+        if (skinIds.isEmpty()) return;
+        Map<String, Map<String, Integer>> deltas = new HashMap<>();
+        for (String skin : skinIds) {
+            deltas.computeIfAbsent(from, k -> new HashMap<>()).merge(skin, -1, Integer::sum);
+            deltas.computeIfAbsent(to, k -> new HashMap<>()).merge(skin, 1, Integer::sum);
+        }
+        submit(deltas);
+    }
+
+    /** A refresh replaced {@code previous} with {@code next}; revalues the holdings of skins whose price moved. */
+    public static void priceBookChanged(PriceSnapshot previous, PriceSnapshot next) {
+        worker.execute(() -> {
+            try {
+                revalue(previous, next);
+            } catch (Exception e) {
+                failures.increment();
+                System.err.println("[Valuation] ⚠️ Revaluation failed, totals lag until the next refresh: " + e.getMessage());
+            }
+        });
+    }
+
+    /** Top inventories by value, served by the {@code inventoryCents} index. */
+    public static List<Standing> leaderboard(int limit) {
+        List<Standing> out = new ArrayList<>(limit);
+        for (Document d : MongoUtil.users().find(Filters.gt("inventoryCents", 0))
+                .projection(Projections.include("inventoryCents"))
+                .sort(Sorts.descending("inventoryCents"))
+                .limit(limit)) {
+            out.add(new Standing(d.getString("_id"), ((Number) d.get("inventoryCents")).longValue()));
+        }
+        return out;
+    }
+
+    public static String stats() {
+        return String.format("inventory events=%d | revaluations=%d changed skins=%d holdings revalued=%d | failures=%d",
+                inventoryEvents.sum(), revaluations.sum(), changedSkins.sum(), holdingsRevalued.sum(), failures.sum());
+    }
+
+    private static void submit(Map<String, Map<String, Integer>> deltas) {
+        if (deltas.isEmpty()) return;
+        inventoryEvents.increment();
+        worker.execute(() -> {
+            try {
+                apply(deltas);
+            } catch (Exception e) {
+                failures.increment();
+                System.err.println("[Valuation] ⚠️ Inventory valuation failed for " + deltas.size()
+                        + " user(s); run with REBUILD_VALUATION=true to repair: " + e.getMessage());
+            }
+        });
+    }
+
+    /** Re-prices the touched holdings at the current price and applies the difference to each user. */
+    private static void apply(Map<String, Map<String, Integer>> deltas) {
+        MongoCollection<Document> holdings = MongoUtil.holdings();
+        List<String> ids = new ArrayList<>();
+        deltas.forEach((user, skins) -> skins.keySet().forEach(skin -> ids.add(holdingId(user, skin))));
+
+        Map<String, Document> existing = new HashMap<>(ids.size() * 2);
+        for (Document d : holdings.find(Filters.in("_id", ids)).projection(Projections.include("qty", "unit"))) {
+            existing.put(d.getString("_id"), d);
+        }
+
+        PriceSnapshot book = PriceUpdater.snapshot();
+        List<WriteModel<Document>> holdingWrites = new ArrayList<>(ids.size());
+        List<WriteModel<Document>> userWrites = new ArrayList<>(deltas.size());
+        deltas.forEach((user, skins) -> {
+            long userDelta = 0;
+            for (Map.Entry<String, Integer> e : skins.entrySet()) {
+                String id = holdingId(user, e.getKey());
+                Document old = existing.get(id);
+                int qty0 = old != null ? old.getInteger("qty", 0) : 0;
+                int unit0 = old != null ? old.getInteger("unit", 0) : 0;
+                int qty1 = Math.max(0, qty0 + e.getValue());
+                SkinPool.Entry skin = SkinPool.get(e.getKey());
+                // A skin that left the catalogue keeps the price it was counted at
+                int unit1 = skin != null ? unitCents(skin, book) : unit0;
+
+                userDelta += (long) qty1 * unit1 - (long) qty0 * unit0;
+                if (qty1 == 0) {
+                    if (old != null) holdingWrites.add(new DeleteOneModel<>(Filters.eq("_id", id)));
+                } else {
+                    holdingWrites.add(new ReplaceOneModel<>(Filters.eq("_id", id), holding(user, e.getKey(), qty1, unit1),
+                            new ReplaceOptions().upsert(true)));
+                }
+            }
+            if (userDelta != 0) {
+                userWrites.add(new UpdateOneModel<>(Filters.eq("_id", user), Updates.inc("inventoryCents", userDelta)));
+            }
+        });
+
+        if (!holdingWrites.isEmpty()) holdings.bulkWrite(holdingWrites, new BulkWriteOptions().ordered(false));
+        if (!userWrites.isEmpty()) MongoUtil.users().bulkWrite(userWrites, new BulkWriteOptions().ordered(false));
+    }
+
+    private static void revalue(PriceSnapshot previous, PriceSnapshot next) {
+        long started = System.currentTimeMillis();
+        List<Change> changes = new ArrayList<>();
+        for (SkinPool.Entry skin : SkinPool.entries()) {
+            int after = unitCents(skin, next);
+            if (after != unitCents(skin, previous)) changes.add(new Change(skin.id, after));
+        }
+        if (changes.isEmpty()) return;
+
+        Map<String, Long> userDeltas = revaluers.invoke(new Revalue(changes, 0, changes.size()));
+
+        List<WriteModel<Document>> writes = new ArrayList<>(Math.min(userDeltas.size(), WRITE_BATCH));
+        for (Map.Entry<String, Long> e : userDeltas.entrySet()) {
+            if (e.getValue() == 0) continue;
+            writes.add(new UpdateOneModel<>(Filters.eq("_id", e.getKey()), Updates.inc("inventoryCents", e.getValue())));
+            if (writes.size() == WRITE_BATCH) {
+                MongoUtil.users().bulkWrite(writes, new BulkWriteOptions().ordered(false));
+                writes.clear();
+            }
+        }
+        if (!writes.isEmpty()) MongoUtil.users().bulkWrite(writes, new BulkWriteOptions().ordered(false));
+
+        revaluations.increment();
+        changedSkins.add(changes.size());
+        System.out.printf("[Valuation] 💶 Revalued %d changed skin(s) across %d user(s) in %.1fs%n",
+                changes.size(), userDeltas.size(), (System.currentTimeMillis() - started) / 1000.0);
+    }
+
+    /** Splits the changed skins until a slice fits one {@code $in}; returns the per-user cent deltas. */
+    private static final class Revalue extends RecursiveTask<Map<String, Long>> {
+        private final List<Change> changes;
+        private final int from;
+        private final int to;
+
+        Revalue(List<Change> changes, int from, int to) {
+            this.changes = changes;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Map<String, Long> compute() {
+            if (to - from <= LEAF) return leaf();
+
+            int mid = (from + to) >>> 1;
+            Revalue left = new Revalue(changes, from, mid);
+            left.fork();
+            Map<String, Long> right = new Revalue(changes, mid, to).compute();
+            Map<String, Long> merged = left.join();
+            right.forEach((user, delta) -> merged.merge(user, delta, Long::sum));
+            return merged;
+        }
+
+        private Map<String, Long> leaf() {
+            Map<String, Integer> unitBySkin = new HashMap<>((to - from) * 2);
+            for (int i = from; i < to; i++) unitBySkin.put(changes.get(i).skinId(), changes.get(i).cents());
+
+            MongoCollection<Document> holdings = MongoUtil.holdings();
+            Map<String, Long> userDeltas = new HashMap<>();
+            List<WriteModel<Document>> writes = new ArrayList<>();
+            for (Document h : holdings.find(Filters.in("skin", unitBySkin.keySet()))
+                    .projection(Projections.include("user", "skin", "qty", "unit"))) {
+                int unit0 = h.getInteger("unit", 0);
+                int unit1 = unitBySkin.get(h.getString("skin"));
+                if (unit0 == unit1) continue;
+
+                userDeltas.merge(h.getString("user"), (long) h.getInteger("qty", 0) * (unit1 - unit0), Long::sum);
+                writes.add(new UpdateOneModel<>(Filters.eq("_id", h.get("_id")), Updates.set("unit", unit1)));
+            }
+            if (!writes.isEmpty()) holdings.bulkWrite(writes, new BulkWriteOptions().ordered(false));
+            holdingsRevalued.add(writes.size());
+            return userDeltas;
+        }
+    }
+
+    /** Recomputes every holding and total from {@code users.inventory} at current prices. */
+    static void rebuildAll() {
+        long started = System.currentTimeMillis();
+        MongoCollection<Document> holdings = MongoUtil.holdings();
+        holdings.deleteMany(new Document());
+
+        PriceSnapshot book = PriceUpdater.snapshot();
+        List<WriteModel<Document>> holdingWrites = new ArrayList<>(WRITE_BATCH);
+        List<WriteModel<Document>> userWrites = new ArrayList<>(WRITE_BATCH);
+        int users = 0;
+
+        for (Document u : MongoUtil.users().find().projection(Projections.include("inventory.skin_id")).batchSize(500)) {
+            String user = u.getString("_id");
+            Map<String, Integer> counts = new HashMap<>();
+            for (Document item : u.getList("inventory", Document.class, List.of())) {
+                if (item.getString("skin_id") != null) counts.merge(item.getString("skin_id"), 1, Integer::sum);
+            }
+
+            long total = 0;
+            for (Map.Entry<String, Integer> e : counts.entrySet()) {
+                SkinPool.Entry skin = SkinPool.get(e.getKey());
+                int unit = skin != null ? unitCents(skin, book) : 0;
+                total += (long) e.getValue() * unit;
+                holdingWrites.add(new InsertOneModel<>(holding(user, e.getKey(), e.getValue(), unit)));
+            }
+            userWrites.add(new UpdateOneModel<>(Filters.eq("_id", user), Updates.set("inventoryCents", total)));
+            users++;
+
+            if (holdingWrites.size() >= WRITE_BATCH) {
+                holdings.bulkWrite(holdingWrites, new BulkWriteOptions().ordered(false));
+                holdingWrites.clear();
+            }
+            if (userWrites.size() >= WRITE_BATCH) {
+                MongoUtil.users().bulkWrite(userWrites, new BulkWriteOptions().ordered(false));
+                userWrites.clear();
+            }
+        }
+        if (!holdingWrites.isEmpty()) holdings.bulkWrite(holdingWrites, new BulkWriteOptions().ordered(false));
+        if (!userWrites.isEmpty()) MongoUtil.users().bulkWrite(userWrites, new BulkWriteOptions().ordered(false));
+
+        System.out.printf("[Valuation] ✅ Rebuilt inventory values for %d user(s) in %.1fs%n",
+                users, (System.currentTimeMillis() - started) / 1000.0);
+    }
+
+    /** Live price if the book has one, else the catalogue price. StatTrak items are valued like the rest, as in /inventory. */
+    private static int unitCents(SkinPool.Entry skin, PriceSnapshot book) {
+        double price = book.get(skin.marketId, skin.price);
+        return price > 0 ? (int) Math.round(price * 100) : 0;
+    }
+
+    private static Document holding(String user, String skin, int qty, int unit) {
+        return new Document("_id", holdingId(user, skin))
+                .append("user", user)
+                .append("skin", skin)
+                .append("qty", qty)
+                .append("unit", unit);
+    }
+
+    private static String holdingId(String user, String skin) {
+        return user + ":" + skin;
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.cs2bot.db;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** Every hot query is served by an index once {@link IndexManager#ensureIndexes()} has run. Needs Docker; skipped without it. */
+@Testcontainers(disabledWithoutDocker = true)
+class IndexManagerTest {
+
+    @Container
+    static final MongoDBContainer mongo = new MongoDBContainer("mongo:7.0");
+
+    @BeforeAll
+    static void connect() {
+        MongoUtil.init(mongo.getReplicaSetUrl(), "cs2bot_index_test");
+        IndexManager.ensureIndexes();
+    }
+
+    /** Each test class has its own container; the next one must not reuse this client. */
+    @AfterAll
+    static void disconnect() {
+        MongoUtil.close();
+    }
+
+    @Test
+    void noHotQueryScansItsCollection() {
+        for (IndexManager.HotQuery q : IndexManager.hotQueries()) {
+            Object plan = IndexManager.winningPlan(q);
+            assertNotNull(plan, q.name() + ": no winning plan");
+            assertFalse(IndexManager.containsStage(plan, "COLLSCAN"), q.name() + " scans: " + plan);
+            // An EOF plan (missing collection) would pass the check above without proving anything
+            assertTrue(IndexManager.containsStage(plan, "IXSCAN"), q.name() + " uses no index: " + plan);
+        }
+        assertEquals(List.of(), IndexManager.verifyQueryPlans());
+    }
+
+    @Test
+    void ensureIndexesIsIdempotent() {
+        IndexManager.ensureIndexes();
+        assertEquals(List.of(), IndexManager.verifyQueryPlans());
+    }
+}
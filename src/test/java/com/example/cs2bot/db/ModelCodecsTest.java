@@ -0,0 +1,164 @@
+package com.example.cs2bot.db;
+
+import com.example.cs2bot.models.Skin;
+import com.example.cs2bot.models.Trade;
+import com.example.cs2bot.models.User;
+import org.bson.*;
+import org.bson.codecs.Codec;
+import org.bson.codecs.CollectibleCodec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.bson.codecs.configuration.CodecRegistry;
+import org.bson.types.Decimal128;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** Encode/decode round trips through the registry {@link MongoUtil} installs, without a server. */
+class ModelCodecsTest {
+
+    private static final CodecRegistry registry = ModelCodecs.registry();
+
+    @Test
+    void userWithLargeInventoryRoundTrips() {
+        User u = new User("123456789");
+        u.keys = 7;
+        u.casesOpened = 4200;
+        u.inventoryCents = 987_654_321L;
+        for (int i = 0; i < 10_000; i++) {
+            User.InventoryItem item = new User.InventoryItem("uid-" + i, "skin-" + (i % 300), 1_700_000_000_000L + i,
+                    i % 10 == 0, i / 10_000.0);
+            if (i % 1000 == 0) item.reservedBy = new ObjectId().toHexString();
+            u.inventory.add(item);
+        }
+
+        User back = roundTrip(User.class, u);
+
+        assertEquals(u.id, back.id);
+        assertEquals(u.keys, back.keys);
+        assertEquals(u.casesOpened, back.casesOpened);
+        assertEquals(u.inventoryCents, back.inventoryCents);
+        assertEquals(u.inventory.size(), back.inventory.size());
+        for (int i = 0; i < u.inventory.size(); i++) {
+            User.InventoryItem a = u.inventory.get(i), b = back.inventory.get(i);
+            assertEquals(a.uid, b.uid, "uid of item " + i);
+            assertEquals(a.skin_id, b.skin_id, "skin_id of item " + i);
+            assertEquals(a.acquiredAt, b.acquiredAt, "acquiredAt of item " + i);
+            assertEquals(a.statTrak, b.statTrak, "statTrak of item " + i);
+            assertEquals(a.floatValue, b.floatValue, "float of item " + i);
+            assertEquals(a.reservedBy, b.reservedBy, "reservedBy of item " + i);
+        }
+    }
+
+    @Test
+    void userWrittenByTheDocumentPathDecodes() {
+        User u = new User("42");
+        u.inventory.add(new User.InventoryItem("u1", "ak47_redline", 1L, true, 0.15));
+        BsonDocument legacy = u.toDocument().toBsonDocument(BsonDocument.class, registry);
+
+        User back = decode(User.class, legacy);
+
+        assertEquals("42", back.id);
+        assertEquals(1, back.inventory.size());
+        assertEquals("ak47_redline", back.inventory.get(0).skin_id);
+        assertTrue(back.inventory.get(0).statTrak);
+    }
+
+    @Test
+    void tradeCodecAssignsAnIdThatSurvivesTheRoundTrip() {
+        Trade t = new Trade();
+        t.from = "alice";
+        t.to = "bob";
+        t.offer.add(new Trade.OfferItem("u1", "awp_asiimov"));
+        t.request.add(new Trade.OfferItem("u2", "m4a4_howl"));
+        t.createdAt = new Date(1_700_000_000_000L);
+
+        @SuppressWarnings("unchecked")
+        CollectibleCodec<Trade> codec = (CollectibleCodec<Trade>) registry.get(Trade.class);
+        assertFalse(codec.documentHasId(t));
+        assertThrows(IllegalStateException.class, () -> codec.getDocumentId(t));
+
+        codec.generateIdIfAbsentFromDocument(t);
+        assertTrue(ObjectId.isValid(t.id));
+        String id = t.id;
+        codec.generateIdIfAbsentFromDocument(t);
+        assertEquals(id, t.id, "an existing id must be kept");
+        assertEquals(new BsonObjectId(new ObjectId(id)), codec.getDocumentId(t));
+
+        BsonDocument doc = encode(Trade.class, t);
+        assertEquals(new ObjectId(id), doc.getObjectId("_id").getValue(), "_id is stored as an ObjectId");
+
+        Trade back = decode(Trade.class, doc);
+        assertEquals(id, back.id);
+        assertEquals("alice", back.from);
+        assertEquals("bob", back.to);
+        assertEquals(Trade.PENDING, back.status);
+        assertEquals(t.createdAt, back.createdAt);
+        assertEquals("u1", back.offer.get(0).uid);
+        assertEquals("m4a4_howl", back.request.get(0).skin_id);
+    }
+
+    @Test
+    void skinAcceptsLegacyWearAndNonDoubleNumbers() {
+        BsonDocument legacy = new BsonDocument()
+                .append("_id", new BsonString("ak47_redline_ft"))
+                .append("name", new BsonString("AK-47 | Redline"))
+                .append("wear", new BsonString("Field-Tested"))
+                .append("price", new BsonInt32(12))
+                .append("rarity", new BsonString("Classified"))
+                .append("float", new BsonInt64(0))
+                .append("minFloat", new BsonDecimal128(new Decimal128(new BigDecimal("0.10"))))
+                .append("maxFloat", new BsonInt32(1))
+                .append("addedBy", new BsonString("seed-v1"));
+
+        Skin s = decode(Skin.class, legacy);
+
+        assertEquals("Field-Tested", s.condition);
+        assertEquals(12.0, s.price);
+        assertEquals(0.0, s.floatValue);
+        assertEquals(0.10, s.minFloat, 1e-12);
+        assertEquals(1.0, s.maxFloat);
+        assertFalse(s.uncurated);
+
+        BsonDocument written = encode(Skin.class, s);
+        assertEquals("Field-Tested", written.getString("condition").getValue());
+        assertFalse(written.containsKey("wear"));
+        assertFalse(written.containsKey("uncurated"), "only written when set");
+        assertEquals(s.contentHash(), written.getString("hash").getValue());
+
+        Skin back = decode(Skin.class, written);
+        assertEquals(s.contentHash(), back.contentHash());
+    }
+
+    @Test
+    void conditionWinsOverWear() {
+        BsonDocument doc = new BsonDocument()
+                .append("condition", new BsonString("Minimal Wear"))
+                .append("wear", new BsonString("Battle-Scarred"))
+                .append("uncurated", BsonBoolean.TRUE);
+
+        Skin s = decode(Skin.class, doc);
+        assertEquals("Minimal Wear", s.condition);
+        assertTrue(s.uncurated);
+        assertEquals(1.0, s.maxFloat, "missing fields keep their defaults");
+    }
+
+    private static <T> T roundTrip(Class<T> type, T value) {
+        return decode(type, encode(type, value));
+    }
+
+    private static <T> BsonDocument encode(Class<T> type, T value) {
+        BsonDocument doc = new BsonDocument();
+        Codec<T> codec = registry.get(type);
+        codec.encode(new BsonDocumentWriter(doc), value, EncoderContext.builder().build());
+        return doc;
+    }
+
+    private static <T> T decode(Class<T> type, BsonDocument doc) {
+        return registry.get(type).decode(new BsonDocumentReader(doc), DecoderContext.builder().build());
+    }
+}
@@ -0,0 +1,290 @@
+package com.example.cs2bot.trade;
+
+import com.example.cs2bot.db.MongoUtil;
+import com.example.cs2bot.models.Trade;
+import com.example.cs2bot.models.User;
+import com.mongodb.MongoException;
+import com.mongodb.client.model.Filters;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Hammers {@link TradeEngine} with concurrent propose / accept / decline / cancel calls on a few
+ * users whose items overlap, against a real single-node replica set (transactions need one).
+ * Afterwards every item must be in exactly one inventory, and no item may stay reserved by a
+ * trade that is no longer pending. A stalling thread holds user stripes past
+ * {@link TradeEngine#LOCK_WAIT_MS} so the {@link TradeEngine.Busy} path runs under load too.
+ * <p>
+ * Needs Docker; skipped without it.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class TradeEngineStressTest {
+
+    private static final int USERS = 6;
+    private static final int ITEMS_PER_USER = 8;
+    private static final int THREADS = 16;
+    private static final long RUN_MS = 15_000;
+    private static final int STALLS = 3;
+
+    @Container
+    static final MongoDBContainer mongo = new MongoDBContainer("mongo:7.0");
+
+    @BeforeAll
+    static void connect() {
+        MongoUtil.init(mongo.getReplicaSetUrl(), "cs2bot_trade_test");
+    }
+
+    @AfterAll
+    static void disconnect() {
+        MongoUtil.close();
+    }
+
+    @BeforeEach
+    void seed() {
+        MongoUtil.users().drop();
+        MongoUtil.trades().drop();
+        MongoUtil.getDB().createCollection("users");
+        MongoUtil.getDB().createCollection("trades");
+
+        List<User> users = new ArrayList<>();
+        for (int u = 0; u < USERS; u++) {
+            User user = new User(userId(u));
+            for (int k = 0; k < ITEMS_PER_USER; k++) {
+                user.inventory.add(new User.InventoryItem(userId(u) + ":item-" + k, "skin-" + (k % 3),
+                        System.currentTimeMillis(), false, 0.1));
+            }
+            users.add(user);
+        }
+        MongoUtil.userModels().insertMany(users);
+    }
+
+    @Test
+    void concurrentTradesNeverDuplicateOrLoseItems() throws Exception {
+        Set<String> allUids = ownersByUid().keySet();
+        assertEquals(USERS * ITEMS_PER_USER, allUids.size());
+
+        List<Trade> open = new CopyOnWriteArrayList<>();
+        LongAdder proposed = new LongAdder(), completed = new LongAdder(), closed = new LongAdder();
+        LongAdder refused = new LongAdder(), busy = new LongAdder(), gaveUp = new LongAdder();
+        Queue<Throwable> unexpected = new ConcurrentLinkedQueue<>();
+        AtomicBoolean running = new AtomicBoolean(true);
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS + 1);
+        List<Future<?>> workers = new ArrayList<>();
+        for (int w = 0; w < THREADS; w++) {
+            workers.add(pool.submit(() -> {
+                ThreadLocalRandom rnd = ThreadLocalRandom.current();
+                while (running.get()) {
+                    Trade t = null;
+                    try {
+                        int roll = rnd.nextInt(10);
+                        if (roll < 5 || open.isEmpty()) {
+                            open.add(proposeRandom(rnd));
+                            proposed.increment();
+                            continue;
+                        }
+                        // Picked without removing, so several threads often race on the same trade
+                        t = open.get(rnd.nextInt(open.size()));
+                        if (roll < 8) {
+                            TradeEngine.accept(t.id, t.to);
+                            completed.increment();
+                        } else if (roll == 8) {
+                            TradeEngine.decline(t.id, t.to);
+                            closed.increment();
+                        } else {
+                            TradeEngine.cancel(t.id, t.from);
+                            closed.increment();
+                        }
+                        open.remove(t);
+                    } catch (TradeEngine.Busy e) {
+                        busy.increment();
+                    } catch (TradeEngine.TradeException e) {
+                        refused.increment();
+                        if (e.closed && t != null) open.remove(t);
+                    } catch (IndexOutOfBoundsException e) {
+                        // open shrank between size() and get()
+                    } catch (MongoException e) {
+                        // Transient errors past MAX_ATTEMPTS: the transaction was aborted, nothing half-applied
+                        gaveUp.increment();
+                    } catch (Throwable e) {
+                        unexpected.add(e);
+                    }
+                }
+                return null;
+            }));
+        }
+
+        Future<?> staller = pool.submit(() -> {
+            ThreadLocalRandom rnd = ThreadLocalRandom.current();
+            for (int i = 0; i < STALLS && running.get(); i++) {
+                TradeEngine.withUsers(List.of(userId(rnd.nextInt(USERS))), () -> {
+                    sleep(TradeEngine.LOCK_WAIT_MS + 300);
+                    return null;
+                });
+                sleep(1000);
+            }
+            return null;
+        });
+
+        sleep(RUN_MS);
+        running.set(false);
+        staller.get(30, TimeUnit.SECONDS);
+        for (Future<?> f : workers) f.get(60, TimeUnit.SECONDS);
+        pool.shutdown();
+
+        Supplier<String> counts = () -> String.format(" (proposed=%d completed=%d closed=%d refused=%d busy=%d gave-up=%d | %s)",
+                proposed.sum(), completed.sum(), closed.sum(), refused.sum(), busy.sum(), gaveUp.sum(), TradeEngine.stats());
+        assertTrue(unexpected.isEmpty(), () -> "unexpected failures: " + unexpected + counts.get());
+        assertTrue(completed.sum() > 0, () -> "no trade completed, the test didn't exercise anything" + counts.get());
+        assertTrue(busy.sum() > 0, () -> "the stalled stripes never produced a Busy" + counts.get());
+
+        assertEachItemOwnedOnce(allUids);
+        assertReservationsHeldByPendingTrades();
+
+        // Closing whatever is still pending must free every item
+        for (Document d : MongoUtil.trades().find(Filters.eq("status", Trade.PENDING))) {
+            try {
+                TradeEngine.cancel(d.getObjectId("_id").toHexString(), d.getString("from"));
+            } catch (TradeEngine.TradeException alreadyClosed) { }
+        }
+        assertEquals(0, MongoUtil.trades().countDocuments(Filters.eq("status", Trade.PENDING)));
+        assertEquals(0, MongoUtil.users().countDocuments(Filters.exists("inventory.reservedBy")));
+        assertEachItemOwnedOnce(allUids);
+    }
+
+    @Test
+    void heldStripeMakesCallsBusyAndLeavesNothingBehind() throws Exception {
+        String alice = userId(0), bob = userId(1);
+        List<User.InventoryItem> offer = inventory(alice).subList(0, 2);
+        List<User.InventoryItem> request = inventory(bob).subList(0, 1);
+
+        // Proposal while the sender's stripe is held: Busy after the lock wait, nothing reserved
+        long started = System.nanoTime();
+        TradeEngine.TradeException e = whileHolding(alice,
+                () -> TradeEngine.propose(alice, bob, offer, request));
+        assertInstanceOf(TradeEngine.Busy.class, e);
+        assertFalse(e.closed);
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started) >= TradeEngine.LOCK_WAIT_MS - 100);
+        assertEquals(0, MongoUtil.users().countDocuments(Filters.exists("inventory.reservedBy")));
+        assertEquals(0, MongoUtil.trades().countDocuments());
+
+        Trade t = TradeEngine.propose(alice, bob, offer, request);
+
+        // Accept while the recipient's stripe is held: Busy, and the trade stays pending with its reservations
+        e = whileHolding(bob, () -> TradeEngine.accept(t.id, bob));
+        assertInstanceOf(TradeEngine.Busy.class, e);
+        assertEquals(Trade.PENDING, MongoUtil.trades().find(Filters.eq("_id", new ObjectId(t.id))).first().getString("status"));
+        assertReservationsHeldByPendingTrades();
+
+        TradeEngine.accept(t.id, bob);
+        assertTrue(uids(inventory(bob)).containsAll(t.offerUids()));
+        assertTrue(uids(inventory(alice)).containsAll(t.requestUids()));
+        assertEachItemOwnedOnce(ownersByUid().keySet());
+        assertEquals(0, MongoUtil.users().countDocuments(Filters.exists("inventory.reservedBy")));
+    }
+
+    // --- helpers ---
+
+    /** Proposes 1-3 of the sender's items for 0-2 of the recipient's, from a possibly stale read. */
+    private static Trade proposeRandom(ThreadLocalRandom rnd) {
+        int from = rnd.nextInt(USERS);
+        int to = (from + 1 + rnd.nextInt(USERS - 1)) % USERS;
+        List<User.InventoryItem> offer = sample(inventory(userId(from)), 1 + rnd.nextInt(3), rnd);
+        List<User.InventoryItem> request = sample(inventory(userId(to)), rnd.nextInt(3), rnd);
+        if (offer.isEmpty() && request.isEmpty()) throw new TradeEngine.TradeException("nothing to trade", false);
+        return TradeEngine.propose(userId(from), userId(to), offer, request);
+    }
+
+    private static void assertEachItemOwnedOnce(Set<String> expected) {
+        Map<String, List<String>> owners = ownersByUid();
+        assertEquals(expected, owners.keySet(), "items were lost or created");
+        owners.forEach((uid, who) -> assertEquals(1, who.size(), () -> uid + " is in " + who));
+    }
+
+    /** Every reserved item belongs to its trade's sender, is offered by it, and the trade is still pending. */
+    private static void assertReservationsHeldByPendingTrades() {
+        for (User u : MongoUtil.userModels().find()) {
+            for (User.InventoryItem item : u.inventory) {
+                if (item.reservedBy == null) continue;
+                Trade t = MongoUtil.tradeModels().find(Filters.eq("_id", new ObjectId(item.reservedBy))).first();
+                assertNotNull(t, () -> item.uid + " is reserved by a trade that doesn't exist");
+                assertEquals(Trade.PENDING, t.status, () -> item.uid + " is reserved by " + t.status + " trade " + t.id);
+                assertEquals(t.from, u.id, () -> item.uid + " is reserved for a trade its owner didn't propose");
+                assertTrue(t.offerUids().contains(item.uid), () -> item.uid + " isn't offered by trade " + t.id);
+            }
+        }
+    }
+
+    /** Runs {@code call} while another thread holds {@code userId}'s stripe; returns what it threw. */
+    private static TradeEngine.TradeException whileHolding(String userId, Runnable call) throws Exception {
+        CountDownLatch held = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(1);
+        Thread holder = new Thread(() -> TradeEngine.withUsers(List.of(userId), () -> {
+            held.countDown();
+            try {
+                done.await(TradeEngine.LOCK_WAIT_MS * 3, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException ignored) { }
+            return null;
+        }));
+        holder.start();
+        assertTrue(held.await(5, TimeUnit.SECONDS));
+        try {
+            return assertThrows(TradeEngine.TradeException.class, call::run);
+        } finally {
+            done.countDown();
+            holder.join();
+        }
+    }
+
+    private static Map<String, List<String>> ownersByUid() {
+        Map<String, List<String>> owners = new HashMap<>();
+        for (User u : MongoUtil.userModels().find()) {
+            for (User.InventoryItem item : u.inventory) owners.computeIfAbsent(item.uid, k -> new ArrayList<>()).add(u.id);
+        }
+        return owners;
+    }
+
+    private static List<User.InventoryItem> inventory(String userId) {
+        User u = MongoUtil.userModels().find(Filters.eq("_id", userId)).first();
+        return u == null ? List.of() : u.inventory;
+    }
+
+    private static List<User.InventoryItem> sample(List<User.InventoryItem> items, int n, ThreadLocalRandom rnd) {
+        List<User.InventoryItem> copy = new ArrayList<>(items);
+        Collections.shuffle(copy, rnd);
+        return copy.subList(0, Math.min(n, copy.size()));
+    }
+
+    private static List<String> uids(List<User.InventoryItem> items) {
+        List<String> out = new ArrayList<>(items.size());
+        for (User.InventoryItem item : items) out.add(item.uid);
+        return out;
+    }
+
+    private static String userId(int i) {
+        return "user-" + i;
+    }
+
+    private static void sleep(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.cs2bot.trade;
+
+import com.example.cs2bot.db.MongoUtil;
+import com.example.cs2bot.models.Trade;
+import com.example.cs2bot.models.User;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Updates;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** Expiry and the orphaned-reservation repair against a real replica set. Needs Docker; skipped without it. */
+@Testcontainers(disabledWithoutDocker = true)
+class TradeSweeperTest {
+
+    @Container
+    static final MongoDBContainer mongo = new MongoDBContainer("mongo:7.0");
+
+    @BeforeAll
+    static void connect() {
+        MongoUtil.init(mongo.getReplicaSetUrl(), "cs2bot_sweeper_test");
+    }
+
+    @AfterAll
+    static void disconnect() {
+        MongoUtil.close();
+    }
+
+    @BeforeEach
+    void seed() {
+        MongoUtil.users().drop();
+        MongoUtil.trades().drop();
+        MongoUtil.getDB().createCollection("users");
+        MongoUtil.getDB().createCollection("trades");
+        for (String id : List.of("alice", "bob")) {
+            User u = new User(id);
+            for (int k = 0; k < 3; k++) {
+                u.inventory.add(new User.InventoryItem(id + ":" + k, "skin", System.currentTimeMillis(), false, 0.1));
+            }
+            MongoUtil.userModels().insertOne(u);
+        }
+    }
+
+    @Test
+    void expiredTradesReleaseTheirItemsInTheSameTransaction() {
+        Trade t = TradeEngine.propose("alice", "bob", items("alice", 2), items("bob", 1));
+        Date old = new Date(System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(TradeSweeper.TRADE_TTL_MINUTES + 1));
+        MongoUtil.trades().updateOne(Filters.eq("_id", new ObjectId(t.id)), Updates.set("createdAt", old));
+
+        assertEquals(1, TradeSweeper.sweep());
+        assertEquals(Trade.EXPIRED, MongoUtil.tradeModels().find(Filters.eq("_id", new ObjectId(t.id))).first().status);
+        assertEquals(0, MongoUtil.users().countDocuments(Filters.exists("inventory.reservedBy")));
+    }
+
+    @Test
+    void reservationsOfClosedTradesAreRepaired() {
+        Trade live = TradeEngine.propose("alice", "bob", items("alice", 1), List.of());
+        // As if a sweep died between expiring a trade and releasing its items
+        Trade dead = TradeEngine.propose("bob", "alice", items("bob", 2), List.of());
+        MongoUtil.trades().updateOne(Filters.eq("_id", new ObjectId(dead.id)), Updates.set("status", Trade.EXPIRED));
+        MongoUtil.users().updateOne(Filters.eq("_id", "alice"), Updates.set("inventory.2.reservedBy", new ObjectId().toHexString()));
+
+        assertEquals(2, TradeSweeper.repairOrphanedReservations());
+        assertEquals(0, MongoUtil.users().countDocuments(Filters.and(Filters.eq("_id", "bob"), Filters.exists("inventory.reservedBy"))));
+        User alice = MongoUtil.userModels().find(Filters.eq("_id", "alice")).first();
+        assertEquals(live.id, alice.inventory.get(0).reservedBy, "a pending trade's reservation must survive");
+        assertNull(alice.inventory.get(2).reservedBy);
+        assertEquals(0, TradeSweeper.repairOrphanedReservations());
+    }
+
+    private static List<User.InventoryItem> items(String userId, int n) {
+        return MongoUtil.userModels().find(Filters.eq("_id", userId)).first().inventory.subList(0, n);
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.cs2bot.utils;
+
+import com.example.cs2bot.utils.PriceProvider.Quote;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** Limiter and breaker behaviour of an {@link Endpoint}, driven through a provider against a local stub server. */
+class EndpointTest {
+
+    private HttpServer server;
+    private final AtomicInteger hits = new AtomicInteger();
+    private volatile int status = 200;
+    private volatile String retryAfter;
+
+    private RateLimiter limiter;
+    private Endpoint endpoint;
+    private PriceProvider provider;
+
+    @BeforeEach
+    void start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/price", ex -> {
+            hits.incrementAndGet();
+            if (retryAfter != null) ex.getResponseHeaders().add("Retry-After", retryAfter);
+            byte[] body = "12.5".getBytes(StandardCharsets.UTF_8);
+            ex.sendResponseHeaders(status, body.length);
+            try (OutputStream out = ex.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+
+        URI base = URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/price");
+        limiter = new RateLimiter("test", 1000, 100);
+        endpoint = new Endpoint("test", limiter, 1, new Backoff(Duration.ofMillis(100), Duration.ofMillis(200)));
+        provider = PriceProviders.http(endpoint, new HttpFetcher(HttpClient.newHttpClient()), Duration.ofSeconds(5),
+                null, name -> base, name -> Map.of(), EndpointTest::parse);
+    }
+
+    @AfterEach
+    void stop() {
+        server.stop(0);
+    }
+
+    @Test
+    void throttlingPausesTheLimiterAndOpensTheBreaker() {
+        status = 429;
+        retryAfter = "2";
+        assertThrows(Exception.class, () -> provider.fetch("AK-47 | Redline").join());
+
+        assertEquals(CircuitBreaker.State.OPEN, endpoint.breaker().state());
+        assertTrue(endpoint.breaker().remainingOpen().toMillis() > 1000,
+                "Retry-After is a floor for the open period: " + endpoint.breaker().remainingOpen());
+        assertFalse(limiter.tryAcquire(), "the limiter must be paused for Retry-After");
+    }
+
+    @Test
+    void openBreakerFailsFastWithoutCallingUpstream() {
+        status = 503;
+        assertThrows(Exception.class, () -> provider.fetch("AK-47 | Redline").join());
+        assertEquals(CircuitBreaker.State.OPEN, endpoint.breaker().state());
+
+        status = 200;
+        long start = System.nanoTime();
+        assertSame(PriceProviders.SKIPPED, provider.fetch("AK-47 | Redline").join());
+        assertTrue(System.nanoTime() - start < Duration.ofMillis(50).toNanos(), "an open breaker must not wait");
+        assertEquals(1, hits.get());
+    }
+
+    @Test
+    void successfulHalfOpenTrialClosesTheBreaker() throws InterruptedException {
+        status = 500;
+        assertThrows(Exception.class, () -> provider.fetch("AK-47 | Redline").join());
+        awaitHalfOpen();
+
+        status = 200;
+        Quote q = provider.fetch("AK-47 | Redline").join();
+        assertEquals(12.5, q.price(), 1e-9);
+        assertEquals(CircuitBreaker.State.CLOSED, endpoint.breaker().state());
+    }
+
+    @Test
+    void failedHalfOpenTrialReopensForLonger() throws InterruptedException {
+        Backoff backoff = new Backoff(Duration.ofMillis(100), Duration.ofSeconds(10));
+        Endpoint e = new Endpoint("test", limiter, 1, backoff);
+        e.record(500, null);
+        awaitHalfOpen(e);
+
+        assertTrue(e.tryPermit(), "half-open lets one trial through");
+        assertFalse(e.tryPermit(), "and only one");
+        e.record(500, null);
+
+        assertEquals(CircuitBreaker.State.OPEN, e.breaker().state());
+        assertEquals(2, backoff.attempt(), "a failed trial takes the next, longer back-off step");
+    }
+
+    @Test
+    void abandonedTrialSlotIsReleasedAfterItsDeadline() throws InterruptedException {
+        CircuitBreaker breaker = new CircuitBreaker("test", 1,
+                new Backoff(Duration.ofMillis(20), Duration.ofMillis(40)), Duration.ofMillis(100));
+        breaker.onFailure();
+        Thread.sleep(60);
+
+        assertTrue(breaker.allow());
+        // The permitted caller never reports back
+        assertFalse(breaker.allow());
+        Thread.sleep(120);
+        assertTrue(breaker.allow(), "a trial that never reported must not hold the slot forever");
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.state());
+    }
+
+    private void awaitHalfOpen() throws InterruptedException {
+        awaitHalfOpen(endpoint);
+    }
+
+    private static void awaitHalfOpen(Endpoint e) throws InterruptedException {
+        Thread.sleep(e.breaker().remainingOpen().toMillis() + 20);
+    }
+
+    private static double parse(InputStream body) {
+        try {
+            return Double.parseDouble(new String(body.readAllBytes(), StandardCharsets.UTF_8).trim());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
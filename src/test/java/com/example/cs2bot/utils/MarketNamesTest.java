@@ -0,0 +1,36 @@
+package com.example.cs2bot.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MarketNamesTest {
+
+    @Test
+    void lookupsNeverIntern() {
+        int before = MarketNames.size();
+        for (int i = 0; i < 1000; i++) {
+            assertEquals("No Such Skin #" + i, MarketNames.canonical("  No Such Skin #" + i + " "));
+        }
+        assertEquals("★ Bowie Knife | Fade", MarketNames.canonical("?Bowie Knife | Fade"));
+        assertEquals(0.0, PriceHistory.priceAt("Never Listed | Anywhere", Instant.now()));
+        assertEquals(List.of(), PriceHistory.lastMonth("Never Listed | Anywhere"));
+        assertEquals(before, MarketNames.size(), "user input must not grow the name table");
+        assertEquals(MarketNames.UNKNOWN, MarketNames.find("No Such Skin #1"));
+    }
+
+    @Test
+    void feedNamesResolveToTheInternedSpelling() {
+        int id = MarketNames.id("? Bowie Knife | Doppler (Factory New)");
+        assertEquals("★ Bowie Knife | Doppler (Factory New)", MarketNames.name(id));
+        assertSame(MarketNames.name(id), MarketNames.canonical("Bowie Knife | Doppler (Factory New)"),
+                "a known name comes back as the interned instance");
+        assertEquals(id, MarketNames.find("★ Bowie Knife | Doppler (Factory New)"));
+        int size = MarketNames.size();
+        assertEquals(id, MarketNames.id("Bowie Knife | Doppler (Factory New)"));
+        assertEquals(size, MarketNames.size());
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.cs2bot.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RarityClassifierTest {
+
+    @Test
+    void bundledRulesRankGlovesAboveKnives() {
+        assertEquals("Extraordinary", RarityClassifier.classify("★ Sport Gloves | Vice (Field-Tested)"));
+        assertEquals("Extraordinary", RarityClassifier.classify("★ Hand Wraps | Cobalt Skulls (Minimal Wear)"));
+        assertEquals("Covert", RarityClassifier.classify("★ Karambit | Doppler (Factory New)"));
+        assertEquals("Covert", RarityClassifier.classify("★ StatTrak™ Butterfly Knife"));
+        assertEquals("Classified", RarityClassifier.classify("AK-47 | Redline (Field-Tested)"));
+        assertEquals(RarityClassifier.UNKNOWN, RarityClassifier.classify("Sticker | Crown (Foil)"));
+        assertEquals(RarityClassifier.UNKNOWN, RarityClassifier.classify(" "));
+        assertEquals(RarityClassifier.UNKNOWN, RarityClassifier.classify(null));
+    }
+
+    @Test
+    void overlappingPatternsAreAllFound() throws IOException {
+        RarityClassifier c = rules("""
+                10 | AK    | Low
+                20 | AK-47 | Mid
+                30 | line  | High
+                5  | Red   | Lowest
+                """);
+        // "line" only matches through a failure link from inside "Redline"
+        assertEquals("High", c.rarityOf("AK-47 | Redline"));
+        assertEquals("Mid", c.rarityOf("AK-47 | Vulcan"));
+        assertEquals("Low", c.rarityOf("AK-74"));
+        assertEquals("Lowest", c.rarityOf("Red Laminate"));
+    }
+
+    @Test
+    void patternNestedInALongerOneStillMatches() throws IOException {
+        RarityClassifier c = rules("""
+                1 | she  | A
+                2 | he   | B
+                3 | hers | C
+                """);
+        assertEquals("B", c.rarityOf("ushe"), "'he' ends inside 'she'");
+        assertEquals("C", c.rarityOf("ushers"));
+        assertEquals(RarityClassifier.UNKNOWN, c.rarityOf("hr"));
+    }
+
+    @Test
+    void equalPrioritiesGoToTheRuleListedFirst() throws IOException {
+        assertEquals("First", rules("""
+                100 | Knife | First
+                100 | ★     | Second
+                """).rarityOf("★ Bowie Knife"));
+        assertEquals("Second", rules("""
+                100 | ★     | Second
+                100 | Knife | First
+                """).rarityOf("★ Bowie Knife"));
+        // Same pattern twice: the earlier line wins
+        assertEquals("One", rules("""
+                7 | AWP | One
+                7 | AWP | Two
+                """).rarityOf("AWP | Asiimov"));
+    }
+
+    @Test
+    void malformedLinesAreSkipped() throws IOException {
+        RarityClassifier c = rules("""
+                # comment
+
+                high | AWP | Covert
+                50 | AWP
+                50 |  | Covert
+                60 | AWP |
+                1 | 2 | 3 | 4
+                40 | AWP | Restricted
+                """);
+        assertEquals(1, c.ruleCount());
+        assertEquals("Restricted", c.rarityOf("AWP | Dragon Lore"));
+    }
+
+    private static RarityClassifier rules(String text) throws IOException {
+        return RarityClassifier.parse(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)));
+    }
+}
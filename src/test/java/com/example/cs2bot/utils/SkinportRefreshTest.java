@@ -0,0 +1,194 @@
+package com.example.cs2bot.utils;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** {@link PriceUpdater#refreshSkinport} against a local stub of the Skinport items endpoint. */
+class SkinportRefreshTest {
+
+    private static final String CATALOGUE = """
+            [
+              {"market_hash_name": "AK-47 | Redline (Field-Tested)", "min_price": 12.5, "suggested_price": 14.0},
+              {"market_hash_name": "AWP | Asiimov (Field-Tested)", "min_price": null, "suggested_price": 80.25},
+              {"market_hash_name": "Sticker | Unpriced", "min_price": null, "suggested_price": null}
+            ]
+            """;
+
+    private HttpServer server;
+    private URI uri;
+    private HttpFetcher fetcher;
+    private Endpoint endpoint;
+
+    // What the stub serves next, and what it saw
+    private volatile String encoding;
+    private volatile String etag;
+    private volatile String body = CATALOGUE;
+    private volatile int status = 200;
+    private final List<String> ifNoneMatch = new CopyOnWriteArrayList<>();
+    private final List<String> acceptEncoding = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/v1/items", ex -> {
+            String sent = ex.getRequestHeaders().getFirst("If-None-Match");
+            ifNoneMatch.add(String.valueOf(sent));
+            acceptEncoding.add(ex.getRequestHeaders().getFirst("Accept-Encoding"));
+            if (etag != null) ex.getResponseHeaders().add("ETag", etag);
+            if (etag != null && etag.equals(sent)) {
+                ex.sendResponseHeaders(304, -1);
+                ex.close();
+                return;
+            }
+            if (status != 200) {
+                ex.sendResponseHeaders(status, -1);
+                ex.close();
+                return;
+            }
+            byte[] raw = body.getBytes(StandardCharsets.UTF_8);
+            if (encoding != null) ex.getResponseHeaders().add("Content-Encoding", encoding);
+            byte[] payload = "gzip".equals(encoding) ? gzip(raw) : "br".equals(encoding) ? brotliStored(raw) : raw;
+            ex.sendResponseHeaders(200, payload.length);
+            try (OutputStream out = ex.getResponseBody()) {
+                out.write(payload);
+            }
+        });
+        server.start();
+
+        uri = URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/v1/items?app_id=730&currency=EUR");
+        fetcher = new HttpFetcher(HttpClient.newHttpClient());
+        endpoint = new Endpoint("skinport-test", new RateLimiter("skinport-test", 1000, 100),
+                3, new Backoff(Duration.ofSeconds(1), Duration.ofSeconds(2)));
+    }
+
+    @AfterEach
+    void stop() {
+        server.stop(0);
+    }
+
+    @Test
+    void gzipCatalogueIsDecodedAndPublished() throws Exception {
+        encoding = "gzip";
+        assertEquals(2, refresh());
+        assertTrue(acceptEncoding.get(0).contains("gzip"));
+        assertEquals(12.5, PriceUpdater.peekPriceEUR("AK-47 | Redline (Field-Tested)"));
+        assertEquals(80.25, PriceUpdater.peekPriceEUR("AWP | Asiimov (Field-Tested)"), "suggested price when no listing");
+    }
+
+    @Test
+    void brotliCatalogueIsDecodedAndPublished() throws Exception {
+        encoding = "br";
+        assertEquals(2, refresh());
+        assertTrue(acceptEncoding.get(0).contains("br"));
+        assertEquals(12.5, PriceUpdater.peekPriceEUR("AK-47 | Redline (Field-Tested)"));
+    }
+
+    @Test
+    void unchangedCatalogueIsA304WithTheCommittedEtag() throws Exception {
+        etag = "\"v1\"";
+        int loaded = refresh();
+        assertEquals(2, loaded);
+        long version = PriceUpdater.snapshot().version();
+
+        assertEquals(PriceUpdater.snapshot().size(), refresh());
+        assertEquals(List.of("null", "\"v1\""), ifNoneMatch);
+        assertEquals(version, PriceUpdater.snapshot().version(), "a 304 must not republish the snapshot");
+    }
+
+    @Test
+    void etagOfABodyThatFailedToIngestIsNotCommitted() throws Exception {
+        etag = "\"v1\"";
+        assertEquals(2, refresh());
+
+        etag = "\"v2\"";
+        body = "[{\"market_hash_name\": \"AK-47 | Redline (Field-Tested)\", \"min_price\": 13";
+        long version = PriceUpdater.snapshot().version();
+        assertThrows(IOException.class, this::refresh, "a failed ingest is a failed refresh, not 0 prices");
+        assertEquals(version, PriceUpdater.snapshot().version(), "a truncated body must not be published");
+
+        body = CATALOGUE;
+        assertEquals(2, refresh());
+        assertEquals(List.of("null", "\"v1\"", "\"v1\""), ifNoneMatch,
+                "the next request must still offer v1, so v2 is downloaded again instead of skipped as a 304");
+    }
+
+    @Test
+    void httpErrorIsAFailureNotZeroPrices() {
+        status = 503;
+        IOException e = assertThrows(IOException.class, this::refresh);
+        assertTrue(e.getMessage().contains("503"), e.getMessage());
+    }
+
+    private int refresh() throws IOException, InterruptedException {
+        return PriceUpdater.refreshSkinport(fetcher, uri, endpoint, new PriceRefreshService.Progress());
+    }
+
+    private static byte[] gzip(byte[] raw) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gz = new GZIPOutputStream(out)) {
+            gz.write(raw);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * A valid brotli stream of stored (uncompressed) meta-blocks (RFC 7932 §9.2). Only a brotli
+     * decoder is on the classpath, and it's the decoder's framing this exercises.
+     */
+    private static byte[] brotliStored(byte[] raw) {
+        Bits out = new Bits();
+        out.put(0, 1);                  // WBITS = 16
+        for (int off = 0; off < raw.length; off += 65536) {
+            int len = Math.min(65536, raw.length - off);
+            out.put(0, 1);              // ISLAST
+            out.put(0, 2);              // MNIBBLES = 4
+            out.put(len - 1, 16);       // MLEN - 1
+            out.put(1, 1);              // ISUNCOMPRESSED
+            out.align();
+            out.bytes.write(raw, off, len);
+        }
+        out.put(1, 1);                  // ISLAST
+        out.put(1, 1);                  // ISLASTEMPTY
+        out.align();
+        return out.bytes.toByteArray();
+    }
+
+    /** Least-significant-bit-first writer, as brotli packs its headers. */
+    private static final class Bits {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        long acc;
+        int n;
+
+        void put(int value, int width) {
+            acc |= (long) value << n;
+            n += width;
+            while (n >= 8) {
+                bytes.write((int) acc & 0xFF);
+                acc >>>= 8;
+                n -= 8;
+            }
+        }
+
+        void align() {
+            if (n > 0) bytes.write((int) acc & 0xFF);
+            acc = 0;
+            n = 0;
+        }
+    }
+}
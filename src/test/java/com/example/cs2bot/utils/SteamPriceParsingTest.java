@@ -0,0 +1,41 @@
+package com.example.cs2bot.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SteamPriceParsingTest {
+
+    @Test
+    void euroAmountsWithThousandsSeparators() {
+        assertEquals(0.03, PriceUpdater.parseEuroAmount("0,03€"));
+        assertEquals(12.5, PriceUpdater.parseEuroAmount("12,5€"));
+        assertEquals(1234.56, PriceUpdater.parseEuroAmount("1.234,56€"));
+        assertEquals(1234567.89, PriceUpdater.parseEuroAmount("1.234.567,89€"));
+        assertEquals(1234.5, PriceUpdater.parseEuroAmount("1 234,5 €"));
+        assertEquals(1234.56, PriceUpdater.parseEuroAmount("1,234.56"));
+        assertEquals(1234.0, PriceUpdater.parseEuroAmount("1.234€"));
+        assertEquals(7.0, PriceUpdater.parseEuroAmount("7€"));
+    }
+
+    @Test
+    void missingOrPlaceholderPricesAreZero() {
+        assertEquals(0.0, PriceUpdater.parseEuroAmount("--,--€"));
+        assertEquals(0.0, PriceUpdater.parseEuroAmount(""));
+        assertEquals(0.0, PriceUpdater.parseSteamOverview(body("{\"success\":true}")));
+        assertEquals(0.0, PriceUpdater.parseSteamOverview(body("{\"success\":true,\"lowest_price\":null}")));
+    }
+
+    @Test
+    void overviewBodyOfAKnife() {
+        assertEquals(1499.99, PriceUpdater.parseSteamOverview(
+                body("{\"success\":true,\"lowest_price\":\"1.499,99€\",\"volume\":\"3\"}")));
+    }
+
+    private static ByteArrayInputStream body(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+}